@@ -3,78 +3,158 @@ package BookMyShow;
 import BookMyShow.Enums.City;
 import BookMyShow.Enums.SeatCategory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class BookMyShow {
 
     MovieController movieController;
     TheatreController theatreController;
+    SeatHoldManager seatHoldManager;
+    //every screen here has the same seat plan, so they all share one layout
+    SeatLayout standardSeatLayout;
+    BookingJournal bookingJournal;
+    ShowAvailabilityCache availabilityCache;
+    SeatPricingEngine seatPricingEngine;
+    NotificationDispatcher notificationDispatcher;
+    ShowWaitlist showWaitlist;
+    //clients retry createBooking on timeouts, keyed by user + request id
+    IdempotencyTable<Booking> bookingRequests;
 
     BookMyShow() {
         movieController = new MovieController();
         theatreController = new TheatreController();
+        //seats are held for 10 minutes while the user is paying
+        seatHoldManager = new SeatHoldManager(10 * 60 * 1000);
+        availabilityCache = new ShowAvailabilityCache(theatreController, 10_000);
+        theatreController.addShowObserver(availabilityCache);
+        theatreController.setAvailabilityCache(availabilityCache);
+        seatPricingEngine = new SeatPricingEngine();
+        notificationDispatcher = new NotificationDispatcher(notifications -> notifications.forEach(System.out::println));
+        showWaitlist = new ShowWaitlist(seatHoldManager, notificationDispatcher, 10_000, this::payForWaitlistHold);
+        theatreController.addShowObserver(showWaitlist);
+        bookingRequests = new IdempotencyTable<>(15 * 60 * 1000, 1_000_000);
     }
 
-    public static void main(String args[]) {
+    public static void main(String args[]) throws IOException {
 
         BookMyShow bookMyShow = new BookMyShow();
 
         bookMyShow.initialize();
+        //pass the same directory again to see the bookings come back after a restart
+        Path journalDirectory = args.length > 0 ? Path.of(args[0]) : Files.createTempDirectory("bookmyshow-journal");
+        bookMyShow.enableJournal(journalDirectory);
+
+        //user1, books 3 seats together
+        Booking booking = bookMyShow.createBooking("req-1", 1, City.Bangalore, "KALKI", List.of(30, 31, 32));
+        //user1's app timed out and retries the same request, gets the same booking back
+        Booking retried = bookMyShow.createBooking("req-1", 1, City.Bangalore, "KALKI", List.of(30, 31, 32));
+        System.out.println("Retry returned the original booking: " + (booking == retried));
+        //user2, one of the seats is already taken so nothing gets booked, user goes on the waitlist
+        bookMyShow.createBooking("req-1", 2, City.Bangalore, "KALKI", List.of(32, 33));
+
+        //flushes the journal and writes a final snapshot
+        bookMyShow.bookingJournal.close();
+    }
 
-        //user1
-        bookMyShow.createBooking(City.Bangalore, "KALKI");
-        //user2
-        bookMyShow.createBooking(City.Bangalore, "KALKI");
-
+    //requestId is generated by the client once per booking attempt and sent again on retries
+    private Booking createBooking(String requestId, int userId, City userCity, String movieName, List<Integer> seatIds) {
+        return bookingRequests.execute(userId + ":" + requestId,
+                () -> createBooking(userId, userCity, movieName, seatIds));
     }
 
-    private void createBooking(City userCity, String movieName) {
+    private Booking createBooking(int userId, City userCity, String movieName, List<Integer> seatIds) {
 
 
         //1. search movie by my location
-        List<Movie> movies = movieController.getMoviesByCity(userCity);
-
         //2. select the movie which you want to see. i want to see Kalki
-        Movie interestedMovie = null;
-        for (Movie movie : movies) {
-
-            if ((movie.getMovieName()).equals(movieName)) {
-                interestedMovie = movie;
-            }
+        Movie interestedMovie = movieController.getMovieByName(userCity, movieName);
+        if (interestedMovie == null) {
+            System.out.println("Movie is not running in " + userCity);
+            return null;
         }
 
         //3. get all show of this movie in Bangalore location
         Map<Theatre, List<Show>> showsTheatreWise = theatreController.getAllShow(interestedMovie, userCity);
 
+        if (showsTheatreWise.isEmpty()) {
+            System.out.println("No shows for " + movieName + " in " + userCity);
+            return null;
+        }
+
         //4. select the particular show user is interested in
         Map.Entry<Theatre, List<Show>> entry = showsTheatreWise.entrySet().iterator().next();
         List<Show> runningShows = entry.getValue();
         Show interestedShow = runningShows.get(0);
 
-        //5. select the seat
-        int seatNumber = 30;
-        List<Integer> bookedSeats = interestedShow.getBookedSeatIds();
-        if (!bookedSeats.contains(seatNumber)) {
-            bookedSeats.add(seatNumber);
-            //startPayment
-            Booking booking = new Booking();
-            List<Seat> myBookedSeats = new ArrayList<>();
-            for (Seat screenSeat : interestedShow.getScreen().getSeats()) {
-                if (screenSeat.getSeatId() == seatNumber) {
-                    myBookedSeats.add(screenSeat);
-                }
-            }
-            booking.setBookedSeats(myBookedSeats);
-            booking.setShow(interestedShow);
-        } else {
+        //the price the user was shown, the occupancy band must not count the user's own seats
+        int price = seatPricingEngine.getTotalPrice(interestedShow, seatIds);
+
+        //5. select the seats, hold all of them while the payment is in progress
+        SeatHold seatHold = seatHoldManager.holdSeats(interestedShow, seatIds);
+        if (seatHold == null) {
             //throw exception
             System.out.println("Seat Already Booked, Try Again!");
-            return;
+            //sold out for this category, wait for seats to free up
+            SeatLayout seatLayout = interestedShow.getScreen().getSeatLayout();
+            SeatCategory category = seatLayout.getSeatCategory(seatLayout.indexOf(seatIds.get(0)));
+            if (interestedShow.findBestSeats(category, seatIds.size()).isEmpty()
+                    && showWaitlist.join(interestedShow, userId, category, seatIds.size())) {
+                System.out.println("Added to the waitlist, we will hold seats for you when they free up");
+            }
+            return null;
+        }
+
+        //startPayment, once payment is done the hold becomes a booking
+        Payment payment = new Payment();
+        payment.setAmount(price);
+        Booking booking = seatHoldManager.confirm(seatHold);
+        if (booking == null) {
+            System.out.println("Seat hold expired, Try Again!");
+            return null;
         }
+        booking.setPayment(payment);
 
-        System.out.println("Booking Successful!");
+        System.out.println("Booking Successful! Paid " + payment.getAmount());
+        return booking;
+    }
+
+    //a promoted waiter pays like any other user, if the payment does not go through the hold expires
+    //and the seats go to the next waiter
+    private void payForWaitlistHold(SeatHold seatHold) {
+        Payment payment = new Payment();
+        payment.setAmount(seatPricingEngine.getTotalPrice(seatHold.getShow(), seatHold.getSeatIds()));
+        Booking booking = seatHoldManager.confirm(seatHold);
+        if (booking != null) {
+            booking.setPayment(payment);
+            System.out.println("Waitlist booking Successful! Paid " + payment.getAmount());
+        }
+    }
+
+    //restore booked seats from the journal in the directory and journal every seat change from now on
+    void enableJournal(Path journalDirectory) throws IOException {
+
+        bookingJournal = BookingJournal.open(journalDirectory);
+
+        Map<Integer, Show> showIdVsShow = new HashMap<>();
+        for (Theatre theatre : theatreController.getAllTheatres()) {
+            for (Show show : theatre.getShows()) {
+                showIdVsShow.put(show.getShowId(), show);
+            }
+        }
+        int restoredSeats = bookingJournal.replay(showIdVsShow);
+        System.out.println("Restored " + restoredSeats + " booked seats from the journal");
+
+        theatreController.addShowObserver(bookingJournal);
+        seatHoldManager.setBookingJournal(bookingJournal);
+        bookingJournal.scheduleSnapshots(1, TimeUnit.MINUTES);
     }
 
     private void initialize() {
@@ -82,6 +162,9 @@ public class BookMyShow {
         //create movies
         createMovies();
 
+        //create the seat plan once, shared by all the screens
+        standardSeatLayout = new SeatLayout(createSeats());
+
         //create theater with screens, seats and shows
         createTheatre();
     }
@@ -123,7 +206,7 @@ public class BookMyShow {
         List<Screen> screens = new ArrayList<>();
         Screen screen1 = new Screen();
         screen1.setScreenId(1);
-        screen1.setSeats(createSeats());
+        screen1.setSeatLayout(standardSeatLayout);
         screens.add(screen1);
 
         return screens;
@@ -136,19 +219,21 @@ public class BookMyShow {
         show.setScreen(screen);
         show.setMovie(movie);
         show.setShowStartTime(showStartTime); //24 hrs time ex: 14 means 2pm and 8 means 8AM
+        show.setShowDate(LocalDate.now());
         return show;
     }
 
     //creating 100 seats
-    private List<Seat> createSeats() {
+    static List<Seat> createSeats() {
 
-        //creating 100 seats for testing purpose, this can be generalised
+        //creating 100 seats for testing purpose, this can be generalised, 10 seats in a row
         List<Seat> seats = new ArrayList<>();
 
         //1 to 40 : SILVER
         for (int i = 0; i < 40; i++) {
             Seat seat = new Seat();
             seat.setSeatId(i);
+            seat.setRow(i / 10);
             seat.setSeatCategory(SeatCategory.SILVER);
             seats.add(seat);
         }
@@ -157,6 +242,7 @@ public class BookMyShow {
         for (int i = 40; i < 70; i++) {
             Seat seat = new Seat();
             seat.setSeatId(i);
+            seat.setRow(i / 10);
             seat.setSeatCategory(SeatCategory.GOLD);
             seats.add(seat);
         }
@@ -165,6 +251,7 @@ public class BookMyShow {
         for (int i = 70; i < 100; i++) {
             Seat seat = new Seat();
             seat.setSeatId(i);
+            seat.setRow(i / 10);
             seat.setSeatCategory(SeatCategory.PLATINUM);
             seats.add(seat);
         }
@@ -0,0 +1,420 @@
+package BookMyShow;
+
+import BookMyShow.Enums.SeatStatus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32C;
+
+//Append only journal of seat state changes, written through memory mapped segment files of 1M records each.
+//
+//Record (24 bytes): timestamp(8) showId(4) seatIndex(4) checksum(4) type(4), type is written last and is never 0.
+//Records straddle 4 KiB pages, so after a crash a record can be half on disk, the CRC32C checksum over the
+//other fields catches that. The first record with type 0 or a bad checksum is the end of the log, on open
+//everything after it is zeroed so records of an older run can never show up behind new ones.
+//Appenders reserve their slot with one atomic add and write it in place, a flusher thread forces the mapped
+//pages to disk and everybody waiting for durability is released by the same force (group commit).
+//If an appender fails to write its slot the journal is poisoned at that position: later appends fail fast,
+//nothing after it is reported durable, and the appenders queued behind it are not left spinning.
+//Seat changes are appended by the observer without waiting, SeatHoldManager.confirm waits for them to be
+//durable before it hands out the booking.
+//
+//Appends are made after the seat CAS, so two events of the same seat can land in the log out of order.
+//Replay therefore does not apply events one by one, it keeps per seat counters instead:
+//taken = holds - releases - cancels, booked = confirms - cancels. Any order of the same events gives the same counters.
+//Snapshots store these counters and the log position they cover, recovery only reads the log after it.
+//Snapshots are fsynced before they replace the old one, then the segments they fully cover are deleted.
+public class BookingJournal implements SeatObserver, Closeable {
+
+    private static final int RECORD_SIZE = 24;
+    private static final long REGION_SIZE = RECORD_SIZE * (1L << 20);
+    private static final int SNAPSHOT_MAGIC = 0x424D534A;
+    private static final int SNAPSHOT_VERSION = 2;
+
+    private final Path directory;
+    private final Path snapshotFile;
+    //segment index -> mapped segment, null for segments not mapped yet or deleted after a snapshot
+    private volatile MappedByteBuffer[] regions = new MappedByteBuffer[0];
+    private final Object regionLock = new Object();
+
+    private final AtomicLong reservedPosition;
+    //everything below this position is completely written
+    private final AtomicLong committedPosition;
+    private volatile long durablePosition;
+    //slot an appender could not write, nothing from here on is valid. Long.MAX_VALUE while healthy
+    private volatile long failedPosition = Long.MAX_VALUE;
+    private final Object durableLock = new Object();
+    private volatile boolean running = true;
+    private final Thread flusherThread;
+    private ScheduledExecutorService snapshotExecutor;
+
+    //(showId, seatIndex) -> {taken, booked}, folded up to foldedPosition
+    private final Map<Long, int[]> seatCounters = new HashMap<>();
+    private long foldedPosition;
+
+    private BookingJournal(Path directory) throws IOException {
+
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.snapshotFile = directory.resolve("bookings.snapshot");
+
+        loadSnapshot();
+
+        long end = foldedPosition;
+        while (isValidRecord(end)) {
+            end += RECORD_SIZE;
+        }
+        clearAfter(end);
+        reservedPosition = new AtomicLong(end);
+        committedPosition = new AtomicLong(end);
+        durablePosition = end;
+
+        flusherThread = new Thread(this::flushLoop, "booking-journal-flusher");
+        flusherThread.setDaemon(true);
+        flusherThread.start();
+    }
+
+    public static BookingJournal open(Path directory) throws IOException {
+        return new BookingJournal(directory);
+    }
+
+    //runs after the seat has already changed, so it must not throw: a failed append poisons the journal
+    //and the booking call finds out in awaitDurable() before it reports the booking done
+    @Override
+    public void update(Show show, int seatIndex, SeatStatus from, SeatStatus to) {
+        try {
+            append(show.getShowId(), seatIndex, from, to);
+        } catch (RuntimeException e) {
+            //already recorded in failedPosition, the other observers still have to run
+        }
+    }
+
+    //returns the log position right after the event, pass it to awaitDurable
+    public long append(int showId, int seatIndex, SeatStatus from, SeatStatus to) {
+
+        if (failedPosition != Long.MAX_VALUE) {
+            throw new IllegalStateException("booking journal failed at position " + failedPosition);
+        }
+        long position = reservedPosition.getAndAdd(RECORD_SIZE);
+        boolean written = false;
+        try {
+            MappedByteBuffer region = region(position);
+            int offset = (int) (position % REGION_SIZE);
+            long timestamp = System.currentTimeMillis();
+            int type = encodeType(from, to);
+            region.putLong(offset, timestamp);
+            region.putInt(offset + 8, showId);
+            region.putInt(offset + 12, seatIndex);
+            region.putInt(offset + 16, checksum(timestamp, showId, seatIndex, type));
+            region.putInt(offset + 20, type);
+            written = true;
+        } finally {
+            //publish in order, wait for the appenders before us to finish their record.
+            //always move on, even when our slot could not be written, or everybody behind us would spin forever
+            int spins = 0;
+            while (committedPosition.get() != position) {
+                if (++spins % 100 == 0) {
+                    Thread.yield();
+                } else {
+                    Thread.onSpinWait();
+                }
+            }
+            if (!written) {
+                poison(position);
+            }
+            committedPosition.set(position + RECORD_SIZE);
+        }
+        return position + RECORD_SIZE;
+    }
+
+    //waits for everything appended so far, the caller's own records included.
+    //a poisoned journal rejects appends without taking a slot, so it fails here whatever the position
+    public void awaitDurable() throws IOException {
+        if (failedPosition != Long.MAX_VALUE) {
+            throw new IOException("booking journal failed at position " + failedPosition);
+        }
+        awaitDurable(committedPosition.get());
+    }
+
+    //an interrupted wait is not durable, the interrupt is kept and the wait fails
+    public void awaitDurable(long position) throws IOException {
+        if (durablePosition >= position) {
+            return;
+        }
+        synchronized (durableLock) {
+            while (durablePosition < position) {
+                if (position > failedPosition) {
+                    throw new IOException("booking journal failed at position " + failedPosition);
+                }
+                try {
+                    durableLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("interrupted before position " + position + " was durable");
+                }
+            }
+        }
+    }
+
+    //rebuild seat state of the given shows, holds are not restored since their timers are gone
+    public synchronized int replay(Map<Integer, Show> showIdVsShow) {
+
+        fold(validEnd());
+        int restoredSeats = 0;
+        for (Map.Entry<Long, int[]> entry : seatCounters.entrySet()) {
+            Show show = showIdVsShow.get((int) (entry.getKey() >>> 32));
+            if (show != null && entry.getValue()[1] > 0 && show.restoreBookedSeat((int) (long) entry.getKey())) {
+                restoredSeats++;
+            }
+        }
+        return restoredSeats;
+    }
+
+    //write the counters up to the current end of the log, recovery then starts from here
+    public synchronized void writeSnapshot() throws IOException {
+
+        fold(validEnd());
+        Path tempFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (FileChannel file = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(file)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(foldedPosition);
+            out.writeInt(seatCounters.size());
+            for (Map.Entry<Long, int[]> entry : seatCounters.entrySet()) {
+                out.writeLong(entry.getKey());
+                out.writeInt(entry.getValue()[0]);
+                out.writeInt(entry.getValue()[1]);
+            }
+            out.flush();
+            file.force(true);
+        }
+        Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory();
+        //the snapshot is durable now, the log it covers is not needed anymore
+        deleteSegmentsBefore(foldedPosition);
+    }
+
+    public synchronized void scheduleSnapshots(long period, TimeUnit unit) {
+        if (snapshotExecutor != null) {
+            return;
+        }
+        snapshotExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "booking-journal-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotExecutor.scheduleAtFixedRate(() -> {
+            try {
+                writeSnapshot();
+            } catch (IOException e) {
+                System.out.println("booking journal snapshot failed: " + e.getMessage());
+            }
+        }, period, period, unit);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (snapshotExecutor != null) {
+            snapshotExecutor.shutdown();
+        }
+        running = false;
+        LockSupport.unpark(flusherThread);
+        try {
+            flusherThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeSnapshot();
+    }
+
+    private void flushLoop() {
+        while (running || durablePosition < validEnd()) {
+            long target = validEnd();
+            if (target > durablePosition) {
+                force(durablePosition, target);
+                synchronized (durableLock) {
+                    durablePosition = target;
+                    durableLock.notifyAll();
+                }
+            } else {
+                LockSupport.parkNanos(100_000);
+            }
+        }
+    }
+
+    private void force(long from, long to) {
+        MappedByteBuffer[] mapped = regions;
+        for (long region = from / REGION_SIZE; region <= (to - 1) / REGION_SIZE; region++) {
+            long regionStart = region * REGION_SIZE;
+            int start = (int) (Math.max(from, regionStart) - regionStart);
+            int end = (int) (Math.min(to, regionStart + REGION_SIZE) - regionStart);
+            //segments already covered by a snapshot may be gone
+            if (region < mapped.length && mapped[(int) region] != null) {
+                mapped[(int) region].force(start, end - start);
+            }
+        }
+    }
+
+    //end of the records which are completely written and valid
+    private long validEnd() {
+        return Math.min(committedPosition.get(), failedPosition);
+    }
+
+    private void poison(long position) {
+        synchronized (durableLock) {
+            failedPosition = Math.min(failedPosition, position);
+            durableLock.notifyAll();
+        }
+    }
+
+    private MappedByteBuffer region(long position) {
+        int index = (int) (position / REGION_SIZE);
+        MappedByteBuffer[] mapped = regions;
+        if (index < mapped.length && mapped[index] != null) {
+            return mapped[index];
+        }
+        synchronized (regionLock) {
+            mapped = regions;
+            if (index < mapped.length && mapped[index] != null) {
+                return mapped[index];
+            }
+            MappedByteBuffer[] grown = Arrays.copyOf(mapped, Math.max(mapped.length, index + 1));
+            try (FileChannel segment = FileChannel.open(segmentFile(index),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                //the mapping stays valid after the channel is closed
+                grown[index] = segment.map(FileChannel.MapMode.READ_WRITE, 0, REGION_SIZE);
+            } catch (IOException e) {
+                throw new IllegalStateException("could not grow the booking journal", e);
+            }
+            regions = grown;
+            return grown[index];
+        }
+    }
+
+    private Path segmentFile(int index) {
+        return directory.resolve("bookings.journal." + index);
+    }
+
+    private boolean isValidRecord(long position) {
+        MappedByteBuffer region = region(position);
+        int offset = (int) (position % REGION_SIZE);
+        int type = region.getInt(offset + 20);
+        return type != 0 && region.getInt(offset + 16)
+                == checksum(region.getLong(offset), region.getInt(offset + 8), region.getInt(offset + 12), type);
+    }
+
+    //zero the rest of the log after the end found on open, torn or stale records there must not be
+    //read as part of the log once new records are written in front of them
+    private void clearAfter(long end) throws IOException {
+        MappedByteBuffer region = region(end);
+        for (int offset = (int) (end % REGION_SIZE); offset < REGION_SIZE; offset += Long.BYTES) {
+            region.putLong(offset, 0L);
+        }
+        region.force();
+        for (int index = (int) (end / REGION_SIZE) + 1; Files.deleteIfExists(segmentFile(index)); index++) {
+        }
+    }
+
+    private void deleteSegmentsBefore(long position) throws IOException {
+        int firstKept = (int) (position / REGION_SIZE);
+        synchronized (regionLock) {
+            MappedByteBuffer[] mapped = regions.clone();
+            for (int i = 0; i < Math.min(firstKept, mapped.length); i++) {
+                mapped[i] = null;
+            }
+            regions = mapped;
+        }
+        for (int index = firstKept - 1; index >= 0 && Files.deleteIfExists(segmentFile(index)); index--) {
+        }
+    }
+
+    //makes the snapshot rename durable, not every OS can sync a directory, the rename is atomic either way
+    private void forceDirectory() {
+        try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        } catch (IOException e) {
+            //ignored, see above
+        }
+    }
+
+    private void fold(long upTo) {
+        for (long position = foldedPosition; position < upTo; position += RECORD_SIZE) {
+            MappedByteBuffer region = region(position);
+            int offset = (int) (position % REGION_SIZE);
+            int showId = region.getInt(offset + 8);
+            int seatIndex = region.getInt(offset + 12);
+            int type = region.getInt(offset + 20);
+
+            long key = ((long) showId << 32) | (seatIndex & 0xFFFFFFFFL);
+            int[] counters = seatCounters.computeIfAbsent(key, k -> new int[2]);
+            SeatStatus from = SeatStatus.values()[(type >>> 4) & 0xF];
+            SeatStatus to = SeatStatus.values()[type & 0xF];
+            if (from == SeatStatus.FREE) {
+                counters[0]++;
+            }
+            if (to == SeatStatus.FREE) {
+                counters[0]--;
+            }
+            if (to == SeatStatus.BOOKED) {
+                counters[1]++;
+            }
+            if (from == SeatStatus.BOOKED) {
+                counters[1]--;
+            }
+            if (counters[0] == 0 && counters[1] == 0) {
+                seatCounters.remove(key);
+            }
+        }
+        foldedPosition = Math.max(foldedPosition, upTo);
+    }
+
+    private void loadSnapshot() throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("not a booking journal snapshot: " + snapshotFile);
+            }
+            foldedPosition = in.readLong();
+            int entries = in.readInt();
+            for (int i = 0; i < entries; i++) {
+                long key = in.readLong();
+                seatCounters.put(key, new int[]{in.readInt(), in.readInt()});
+            }
+        }
+    }
+
+    private static int checksum(long timestamp, int showId, int seatIndex, int type) {
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(20).putLong(timestamp).putInt(showId).putInt(seatIndex).putInt(type).array());
+        return (int) crc.getValue();
+    }
+
+    private static int encodeType(SeatStatus from, SeatStatus to) {
+        return 0x100 | (from.ordinal() << 4) | to.ordinal();
+    }
+}
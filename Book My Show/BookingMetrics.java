@@ -0,0 +1,190 @@
+package BookMyShow;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+//Counters and latency histograms of the booking hot paths, plus seat conflicts per show.
+//Everything is striped (LongAdder, histogram stripes by thread) so recording does not become a contention point.
+//Counts are exact, latencies are timed for a random 1 in LATENCY_SAMPLE_RATE operations: reading the clock twice
+//costs about as much as a failed hold, sampling keeps the percentiles and takes the clock off most calls.
+//Conflicts of a show are dropped once the show is over. BookingMetrics.disabled() records nothing, it is the
+//baseline LoadGenerator compares against to measure what the metrics cost.
+public class BookingMetrics {
+
+    enum Operation {
+        SEARCH,
+        HOLD,
+        CONFIRM,
+        RELEASE,
+        CANCEL;
+    }
+
+    private static final int LATENCY_SAMPLE_RATE = 16;
+    private static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+    private final Map<Operation, LongAdder> operationCounts = new EnumMap<>(Operation.class);
+    private final Map<Operation, LatencyHistogram> operationLatencies = new EnumMap<>(Operation.class);
+    private final LongAdder conflicts = new LongAdder();
+    private final Map<Integer, ShowConflicts> showIdVsConflicts = new ConcurrentHashMap<>();
+    //finished shows are swept when the map grows past this, so the sweep is amortised over the new shows
+    private volatile int sweepThreshold = 1024;
+    private final boolean enabled;
+
+    BookingMetrics() {
+        this(true);
+    }
+
+    private BookingMetrics(boolean enabled) {
+        this.enabled = enabled;
+        for (Operation operation : Operation.values()) {
+            operationCounts.put(operation, new LongAdder());
+            operationLatencies.put(operation, new LatencyHistogram());
+        }
+    }
+
+    //records nothing and does not read the clock
+    static BookingMetrics disabled() {
+        return new BookingMetrics(false);
+    }
+
+    //pass to recordSince when the operation is done
+    public long startNanos() {
+        if (!enabled || ThreadLocalRandom.current().nextInt(LATENCY_SAMPLE_RATE) != 0) {
+            return NOT_SAMPLED;
+        }
+        return System.nanoTime();
+    }
+
+    public void recordSince(Operation operation, long startNanos) {
+        if (!enabled) {
+            return;
+        }
+        if (startNanos == NOT_SAMPLED) {
+            operationCounts.get(operation).increment();
+        } else {
+            record(operation, System.nanoTime() - startNanos);
+        }
+    }
+
+    public void record(Operation operation, long latencyNanos) {
+        if (!enabled) {
+            return;
+        }
+        operationCounts.get(operation).increment();
+        operationLatencies.get(operation).record(latencyNanos);
+    }
+
+    //seats asked for were already taken
+    public void recordConflict(Show show) {
+        if (!enabled) {
+            return;
+        }
+        conflicts.increment();
+        ShowConflicts showConflicts = showIdVsConflicts.get(show.getShowId());
+        if (showConflicts == null) {
+            showConflicts = showIdVsConflicts.computeIfAbsent(show.getShowId(), k -> new ShowConflicts(show.getShowEndTime()));
+            if (showIdVsConflicts.size() >= sweepThreshold) {
+                evictFinishedShows(LocalDateTime.now());
+            }
+        }
+        showConflicts.count.increment();
+    }
+
+    //drops the conflicts of shows which ended before now
+    public void evictFinishedShows(LocalDateTime now) {
+        showIdVsConflicts.values().removeIf(showConflicts ->
+                showConflicts.showEndTime != null && showConflicts.showEndTime.isBefore(now));
+        sweepThreshold = Math.max(1024, showIdVsConflicts.size() * 2);
+    }
+
+    public MetricsSnapshot snapshot() {
+        Map<Operation, Long> counts = new EnumMap<>(Operation.class);
+        Map<Operation, LatencyHistogram.Snapshot> latencies = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            counts.put(operation, operationCounts.get(operation).sum());
+            latencies.put(operation, operationLatencies.get(operation).snapshot());
+        }
+        Map<Integer, Long> showConflicts = new TreeMap<>();
+        for (Map.Entry<Integer, ShowConflicts> entry : showIdVsConflicts.entrySet()) {
+            showConflicts.put(entry.getKey(), entry.getValue().count.sum());
+        }
+        //a finished show is exported one last time, then dropped
+        evictFinishedShows(LocalDateTime.now());
+        return new MetricsSnapshot(counts, latencies, conflicts.sum(), showConflicts);
+    }
+
+    private static class ShowConflicts {
+
+        final LongAdder count = new LongAdder();
+        final LocalDateTime showEndTime;
+
+        ShowConflicts(LocalDateTime showEndTime) {
+            this.showEndTime = showEndTime;
+        }
+    }
+
+    public static class MetricsSnapshot {
+
+        final Map<Operation, Long> counts;
+        final Map<Operation, LatencyHistogram.Snapshot> latencies;
+        final long conflicts;
+        final Map<Integer, Long> showIdVsConflicts;
+
+        MetricsSnapshot(Map<Operation, Long> counts, Map<Operation, LatencyHistogram.Snapshot> latencies,
+                        long conflicts, Map<Integer, Long> showIdVsConflicts) {
+            this.counts = counts;
+            this.latencies = latencies;
+            this.conflicts = conflicts;
+            this.showIdVsConflicts = showIdVsConflicts;
+        }
+
+        public long getCount(Operation operation) {
+            return counts.get(operation);
+        }
+
+        public LatencyHistogram.Snapshot getLatency(Operation operation) {
+            return latencies.get(operation);
+        }
+
+        public long getConflicts() {
+            return conflicts;
+        }
+
+        public Map<Integer, Long> getShowIdVsConflicts() {
+            return showIdVsConflicts;
+        }
+
+        public long getTotalOperations() {
+            long total = 0;
+            for (long count : counts.values()) {
+                total += count;
+            }
+            return total;
+        }
+
+        //one metric per line, name{labels} value (Prometheus text style), latencies in nanoseconds
+        public String export() {
+            StringBuilder out = new StringBuilder();
+            for (Operation operation : Operation.values()) {
+                String name = operation.name().toLowerCase();
+                LatencyHistogram.Snapshot latency = latencies.get(operation);
+                out.append("booking_operations_total{operation=\"").append(name).append("\"} ").append(counts.get(operation)).append('\n');
+                for (double percentile : new double[]{0.5, 0.99, 0.999}) {
+                    out.append("booking_latency_nanos{operation=\"").append(name).append("\",quantile=\"").append(percentile)
+                            .append("\"} ").append(latency.getValueAtPercentile(percentile)).append('\n');
+                }
+                out.append("booking_latency_nanos_max{operation=\"").append(name).append("\"} ").append(latency.getMax()).append('\n');
+            }
+            out.append("booking_conflicts_total ").append(conflicts).append('\n');
+            for (Map.Entry<Integer, Long> entry : showIdVsConflicts.entrySet()) {
+                out.append("booking_conflicts_total{show=\"").append(entry.getKey()).append("\"} ").append(entry.getValue()).append('\n');
+            }
+            return out.toString();
+        }
+    }
+}
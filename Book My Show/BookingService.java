@@ -0,0 +1,134 @@
+package BookMyShow;
+
+import BookMyShow.Enums.City;
+import BookMyShow.Enums.SeatCategory;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//Thread safe booking facade, every user session runs as its own task.
+//Sessions run on virtual threads when the JVM has them (JDK 21+), otherwise on a bounded platform thread pool.
+//Catalog reads are safe to share once the catalog is loaded, seat changes go through the lock free SeatStatusMap.
+public class BookingService {
+
+    MovieController movieController;
+    TheatreController theatreController;
+    SeatHoldManager seatHoldManager;
+    ExecutorService sessionExecutor;
+    BookingMetrics metrics;
+    //client retries of book(), same key -> same Booking
+    IdempotencyTable<Booking> bookingRequests;
+
+    BookingService(MovieController movieController, TheatreController theatreController, SeatHoldManager seatHoldManager) {
+        this(movieController, theatreController, seatHoldManager, new BookingMetrics());
+    }
+
+    //pass BookingMetrics.disabled() to run without metrics
+    BookingService(MovieController movieController, TheatreController theatreController, SeatHoldManager seatHoldManager,
+                   BookingMetrics metrics) {
+        this.movieController = movieController;
+        this.theatreController = theatreController;
+        this.seatHoldManager = seatHoldManager;
+        this.sessionExecutor = newSessionExecutor();
+        this.metrics = metrics;
+        this.bookingRequests = new IdempotencyTable<>(15 * 60 * 1000, 1_000_000);
+    }
+
+    public BookingMetrics getMetrics() {
+        return metrics;
+    }
+
+    public <T> CompletableFuture<T> submitSession(Callable<T> session) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return session.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, sessionExecutor);
+    }
+
+    //1. search the shows of a movie in the user's city
+    public List<Show> searchShows(City city, String movieName) {
+        long start = metrics.startNanos();
+        Movie movie = movieController.getMovieByName(city, movieName);
+        List<Show> shows = movie == null ? List.of() : theatreController.getShows(movie, city);
+        metrics.recordSince(BookingMetrics.Operation.SEARCH, start);
+        return shows;
+    }
+
+    //2. hold the seats while the user pays, null if any of them is taken
+    public SeatHold hold(Show show, List<Integer> seatIds) {
+        long start = metrics.startNanos();
+        SeatHold hold = seatHoldManager.holdSeats(show, seatIds);
+        recordHold(show, hold, start);
+        return hold;
+    }
+
+    public SeatHold holdBestSeats(Show show, SeatCategory category, int n) {
+        long start = metrics.startNanos();
+        SeatHold hold = seatHoldManager.holdBestSeats(show, category, n);
+        recordHold(show, hold, start);
+        return hold;
+    }
+
+    //3. payment done, null if the hold expired in between
+    public Booking confirm(SeatHold hold) {
+        long start = metrics.startNanos();
+        Booking booking = seatHoldManager.confirm(hold);
+        metrics.recordSince(BookingMetrics.Operation.CONFIRM, start);
+        return booking;
+    }
+
+    //hold + confirm in one call, safe to retry: a retry with the same idempotency key returns the booking
+    //of the first attempt and does not touch the seats again. an attempt which could not book (null) is not
+    //remembered, a later retry tries again
+    public Booking book(String idempotencyKey, Show show, List<Integer> seatIds) {
+        return bookingRequests.execute(idempotencyKey, () -> {
+            SeatHold hold = hold(show, seatIds);
+            return hold == null ? null : confirm(hold);
+        });
+    }
+
+    public boolean release(SeatHold hold) {
+        long start = metrics.startNanos();
+        boolean released = seatHoldManager.release(hold);
+        metrics.recordSince(BookingMetrics.Operation.RELEASE, start);
+        return released;
+    }
+
+    //4. cancel a confirmed booking, the seats become free again
+    public boolean cancel(Booking booking) {
+        long start = metrics.startNanos();
+        boolean cancelled = true;
+        for (Seat seat : booking.getBookedSeats()) {
+            cancelled &= booking.getShow().cancelSeat(seat.getSeatId());
+        }
+        metrics.recordSince(BookingMetrics.Operation.CANCEL, start);
+        return cancelled;
+    }
+
+    public void shutdown() {
+        sessionExecutor.shutdown();
+    }
+
+    private void recordHold(Show show, SeatHold hold, long start) {
+        metrics.recordSince(BookingMetrics.Operation.HOLD, start);
+        if (hold == null) {
+            metrics.recordConflict(show);
+        }
+    }
+
+    private static ExecutorService newSessionExecutor() {
+        try {
+            //looked up reflectively so this still compiles and runs on JDKs without virtual threads
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 4);
+        }
+    }
+}
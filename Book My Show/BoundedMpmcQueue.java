@@ -0,0 +1,81 @@
+package BookMyShow;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+//Bounded lock free multi producer multi consumer queue (Vyukov's array queue).
+//Every slot has a sequence number telling whether it is ready to be written (== tail) or read (== head + 1),
+//producers and consumers claim a slot with one CAS on tail/head and never block each other.
+public class BoundedMpmcQueue<T> {
+
+    private final int mask;
+    private final AtomicReferenceArray<T> items;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    //capacity is rounded up to a power of 2
+    public BoundedMpmcQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        mask = size - 1;
+        items = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    //false if the queue is full
+    public boolean offer(T item) {
+        while (true) {
+            long position = tail.get();
+            int slot = (int) (position & mask);
+            long difference = sequences.get(slot) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    items.set(slot, item);
+                    sequences.set(slot, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+        }
+    }
+
+    //null if the queue is empty
+    public T poll() {
+        while (true) {
+            long position = head.get();
+            int slot = (int) (position & mask);
+            long difference = sequences.get(slot) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    T item = items.get(slot);
+                    items.set(slot, null);
+                    sequences.set(slot, position + mask + 1);
+                    return item;
+                }
+            } else if (difference < 0) {
+                return null;
+            }
+        }
+    }
+
+    //the item poll would return, without removing it. null if the queue is empty.
+    //only stable when the calling thread is the only consumer
+    public T peek() {
+        long position = head.get();
+        int slot = (int) (position & mask);
+        return sequences.get(slot) == position + 1 ? items.get(slot) : null;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
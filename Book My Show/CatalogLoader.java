@@ -0,0 +1,241 @@
+package BookMyShow;
+
+import BookMyShow.Enums.City;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+//Loads a nationwide show schedule from a CSV file, one show per line:
+//  showId,showDate,startTime,city,theatreId,screenId,seatPlan,movieId,movieName,durationMinutes
+//  ex: 101,2024-06-27,18,Bangalore,7,1,STANDARD,2,KALKI,180
+//
+//The file is streamed in chunks of lines which are parsed in parallel, at most 2 chunks per thread are in memory
+//at any time so peak heap is the catalog itself plus a bounded parse buffer. Movies, theatres and screens are
+//deduplicated by id while parsing, and the controller indexes are built once at the end with their bulk methods.
+public class CatalogLoader {
+
+    private static final int CHUNK_LINES = 10_000;
+
+    private final MovieController movieController;
+    private final TheatreController theatreController;
+    //seatPlan column -> shared seat layout
+    private final Map<String, SeatLayout> seatPlans;
+
+    private final Map<Integer, Movie> idVsMovie = new ConcurrentHashMap<>();
+    private final Map<Integer, Theatre> idVsTheatre = new ConcurrentHashMap<>();
+    private final Map<Long, Screen> idVsScreen = new ConcurrentHashMap<>();
+    private final Map<Integer, Collection<Show>> theatreIdVsShows = new ConcurrentHashMap<>();
+    private final Map<Integer, Collection<Screen>> theatreIdVsScreens = new ConcurrentHashMap<>();
+    private final Map<City, Set<Movie>> cityVsMovies = new ConcurrentHashMap<>();
+    //showId -> line it was read from, a show id must be unique in the file
+    private final Map<Integer, Integer> showIdVsLine = new ConcurrentHashMap<>();
+
+    CatalogLoader(MovieController movieController, TheatreController theatreController, Map<String, SeatLayout> seatPlans) {
+        this.movieController = movieController;
+        this.theatreController = theatreController;
+        this.seatPlans = seatPlans;
+    }
+
+    //returns the number of shows loaded
+    public int load(Path file) throws IOException, InterruptedException {
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService parsers = Executors.newFixedThreadPool(threads);
+        Semaphore inFlightChunks = new Semaphore(threads * 2);
+        List<Future<Integer>> parsedChunks = new ArrayList<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<String> chunk = new ArrayList<>(CHUNK_LINES);
+            int lineNumber = 0;
+            int chunkFirstLine = 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (!line.isBlank() && !line.startsWith("#") && !line.startsWith("showId")) {
+                    chunk.add(line);
+                }
+                if (chunk.size() == CHUNK_LINES) {
+                    parsedChunks.add(submit(parsers, inFlightChunks, chunk, chunkFirstLine));
+                    chunk = new ArrayList<>(CHUNK_LINES);
+                    chunkFirstLine = lineNumber + 1;
+                }
+            }
+            if (!chunk.isEmpty()) {
+                parsedChunks.add(submit(parsers, inFlightChunks, chunk, chunkFirstLine));
+            }
+
+            int shows = 0;
+            for (Future<Integer> parsedChunk : parsedChunks) {
+                shows += parsedChunk.get();
+            }
+
+            buildIndexes();
+            return shows;
+        } catch (ExecutionException e) {
+            throw new IllegalArgumentException("could not load " + file + ": " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            parsers.shutdown();
+        }
+    }
+
+    private Future<Integer> submit(ExecutorService parsers, Semaphore inFlightChunks, List<String> chunk, int firstLine)
+            throws InterruptedException {
+        inFlightChunks.acquire();
+        return parsers.submit(() -> {
+            try {
+                for (int i = 0; i < chunk.size(); i++) {
+                    parseLine(chunk.get(i), firstLine + i);
+                }
+                return chunk.size();
+            } finally {
+                inFlightChunks.release();
+            }
+        });
+    }
+
+    private void parseLine(String line, int lineNumber) {
+
+        String[] columns = line.split(",", -1);
+        if (columns.length != 10) {
+            throw new IllegalArgumentException("line " + lineNumber + ": expected 10 columns, found " + columns.length);
+        }
+
+        City city = City.valueOf(columns[3].trim());
+        int theatreId = Integer.parseInt(columns[4].trim());
+        int screenId = Integer.parseInt(columns[5].trim());
+        SeatLayout seatLayout = seatPlans.get(columns[6].trim());
+        if (seatLayout == null) {
+            throw new IllegalArgumentException("line " + lineNumber + ": unknown seat plan " + columns[6]);
+        }
+        int movieId = Integer.parseInt(columns[7].trim());
+
+        Movie movie = idVsMovie.computeIfAbsent(movieId, id -> {
+            Movie newMovie = new Movie();
+            newMovie.setMovieId(id);
+            newMovie.setMovieName(columns[8].trim());
+            newMovie.setMovieDuration(Integer.parseInt(columns[9].trim()));
+            return newMovie;
+        });
+        cityVsMovies.computeIfAbsent(city, k -> ConcurrentHashMap.newKeySet()).add(movie);
+
+        Theatre theatre = idVsTheatre.computeIfAbsent(theatreId, id -> {
+            Theatre newTheatre = new Theatre();
+            newTheatre.setTheatreId(id);
+            newTheatre.setCity(city);
+            return newTheatre;
+        });
+        if (theatre.getCity() != city) {
+            throw new IllegalArgumentException("line " + lineNumber + ": theatre " + theatreId + " is in "
+                    + theatre.getCity() + ", not " + city);
+        }
+        Screen screen = idVsScreen.computeIfAbsent(((long) theatreId << 32) | screenId, id -> {
+            Screen newScreen = new Screen();
+            newScreen.setScreenId(screenId);
+            newScreen.setSeatLayout(seatLayout);
+            theatreIdVsScreens.computeIfAbsent(theatreId, k -> new ConcurrentLinkedQueue<>()).add(newScreen);
+            return newScreen;
+        });
+
+        int showId = Integer.parseInt(columns[0].trim());
+        Integer firstLine = showIdVsLine.putIfAbsent(showId, lineNumber);
+        if (firstLine != null) {
+            throw new IllegalArgumentException("line " + lineNumber + ": duplicate showId " + showId
+                    + ", also on line " + firstLine);
+        }
+
+        Show show = new Show();
+        show.setShowId(showId);
+        show.setShowDate(LocalDate.parse(columns[1].trim()));
+        show.setShowStartTime(Integer.parseInt(columns[2].trim()));
+        show.setMovie(movie);
+        show.setScreen(screen);
+        theatreIdVsShows.computeIfAbsent(theatreId, k -> new ConcurrentLinkedQueue<>()).add(show);
+    }
+
+    //single threaded, after all the chunks are parsed
+    private void buildIndexes() {
+
+        List<Theatre> theatres = new ArrayList<>(idVsTheatre.values());
+        theatres.sort(Comparator.comparingInt(Theatre::getTheatreId));
+        for (Theatre theatre : theatres) {
+            List<Screen> screens = new ArrayList<>(theatreIdVsScreens.getOrDefault(theatre.getTheatreId(), List.of()));
+            screens.sort(Comparator.comparingInt(Screen::getScreenId));
+            theatre.setScreen(screens);
+
+            List<Show> shows = new ArrayList<>(theatreIdVsShows.getOrDefault(theatre.getTheatreId(), List.of()));
+            shows.sort(Comparator.comparingInt(Show::getShowStartTime).thenComparingInt(Show::getShowId));
+            theatre.setShows(shows);
+        }
+
+        Map<City, List<Movie>> moviesByCity = new EnumMap<>(City.class);
+        for (Map.Entry<City, Set<Movie>> entry : cityVsMovies.entrySet()) {
+            List<Movie> movies = new ArrayList<>(entry.getValue());
+            movies.sort(Comparator.comparingInt(Movie::getMovieId));
+            moviesByCity.put(entry.getKey(), movies);
+        }
+
+        movieController.addMovies(moviesByCity);
+        theatreController.addTheatres(theatres);
+    }
+
+    //usage: CatalogLoader [csv file], without a file a schedule of 100k shows is generated first
+    public static void main(String args[]) throws Exception {
+
+        Path file;
+        if (args.length > 0) {
+            file = Path.of(args[0]);
+        } else {
+            file = Files.createTempFile("schedule", ".csv");
+            file.toFile().deleteOnExit();
+            writeSampleSchedule(file, 100_000);
+        }
+
+        Runtime runtime = Runtime.getRuntime();
+        long start = System.nanoTime();
+        MovieController movieController = new MovieController();
+        TheatreController theatreController = new TheatreController();
+        CatalogLoader loader = new CatalogLoader(movieController, theatreController,
+                Map.of("STANDARD", new SeatLayout(BookMyShow.createSeats())));
+        int shows = loader.load(file);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("loaded %d shows, %d movies, %d theatres in %d ms, heap used %d MB%n", shows,
+                movieController.allMovies.size(), theatreController.getAllTheatres().size(), elapsedMillis,
+                (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024));
+    }
+
+    static void writeSampleSchedule(Path file, int shows) throws IOException {
+        City[] cities = City.values();
+        String today = LocalDate.now().toString();
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("showId,showDate,startTime,city,theatreId,screenId,seatPlan,movieId,movieName,durationMinutes");
+            writer.newLine();
+            for (int showId = 1; showId <= shows; showId++) {
+                int theatreId = showId / 20;
+                int movieId = showId % 500;
+                writer.write(showId + "," + today + "," + (8 + showId % 16) + "," + cities[theatreId % cities.length] + ","
+                        + theatreId + "," + (showId % 4) + ",STANDARD," + movieId + ",MOVIE " + movieId + ",150");
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package BookMyShow;
+
+import BookMyShow.Enums.City;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+//Show search throughput of the copy on write TheatreController against the same index behind a synchronized lock,
+//with 1 to 64 reader threads and one writer adding a show every millisecond.
+//
+//usage: CatalogReadBenchmark [seconds per run] [movies]
+public class CatalogReadBenchmark {
+
+    public static void main(String args[]) throws Exception {
+
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 1;
+        int movieCount = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < movieCount; i++) {
+            Movie movie = new Movie();
+            movie.setMovieId(i);
+            movie.setMovieName("MOVIE " + i);
+            movies.add(movie);
+        }
+
+        System.out.printf("%-8s %18s %18s%n", "readers", "synchronized ops/s", "copy-on-write ops/s");
+        for (int readers = 1; readers <= 64; readers *= 2) {
+            SynchronizedCatalog synchronizedCatalog = new SynchronizedCatalog();
+            TheatreController copyOnWriteCatalog = new TheatreController();
+            long synchronizedOps = run(readers, seconds, movies,
+                    synchronizedCatalog::getAllShow, synchronizedCatalog::addTheatre);
+            long copyOnWriteOps = run(readers, seconds, movies,
+                    copyOnWriteCatalog::getAllShow, copyOnWriteCatalog::addTheatre);
+            System.out.printf("%-8d %18.0f %18.0f%n", readers, synchronizedOps / (double) seconds, copyOnWriteOps / (double) seconds);
+        }
+    }
+
+    interface TheatreWriter {
+        void addTheatre(Theatre theatre, City city);
+    }
+
+    private static long run(int readers, long seconds, List<Movie> movies,
+                            BiFunction<Movie, City, Map<Theatre, List<Show>>> reader, TheatreWriter writer) throws InterruptedException {
+
+        SeatLayout seatLayout = new SeatLayout(BookMyShow.createSeats());
+        int[] ids = {0};
+        Runnable addTheatre = () -> {
+            Screen screen = new Screen();
+            screen.setSeatLayout(seatLayout);
+            Theatre theatre = new Theatre();
+            theatre.setTheatreId(++ids[0]);
+            theatre.setCity(City.Bangalore);
+            Show show = new Show();
+            show.setShowId(ids[0]);
+            show.setMovie(movies.get(ids[0] % movies.size()));
+            show.setScreen(screen);
+            show.setShowDate(LocalDate.now());
+            theatre.getShows().add(show);
+            writer.addTheatre(theatre, City.Bangalore);
+        };
+        for (int i = 0; i < movies.size() * 5; i++) {
+            addTheatre.run();
+        }
+
+        LongAdder reads = new LongAdder();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Thread> threads = new ArrayList<>();
+        for (int r = 0; r < readers; r++) {
+            threads.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long count = 0;
+                while (System.nanoTime() < deadline) {
+                    Map<Theatre, List<Show>> shows = reader.apply(movies.get(random.nextInt(movies.size())), City.Bangalore);
+                    if (!shows.isEmpty()) {
+                        count++;
+                    }
+                }
+                reads.add(count);
+            }));
+        }
+        Thread writerThread = new Thread(() -> {
+            while (System.nanoTime() < deadline) {
+                addTheatre.run();
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        threads.add(writerThread);
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return reads.sum();
+    }
+
+    //baseline: the (city, movie) -> shows index guarded by one lock, result copied out so callers can not see later writes
+    static class SynchronizedCatalog {
+
+        private final Map<City, Map<Integer, Map<Theatre, List<Show>>>> cityVsMovieShows = new HashMap<>();
+
+        synchronized void addTheatre(Theatre theatre, City city) {
+            for (Show show : theatre.getShows()) {
+                cityVsMovieShows.computeIfAbsent(city, k -> new HashMap<>())
+                        .computeIfAbsent(show.getMovie().getMovieId(), k -> new LinkedHashMap<>())
+                        .computeIfAbsent(theatre, k -> new ArrayList<>())
+                        .add(show);
+            }
+        }
+
+        synchronized Map<Theatre, List<Show>> getAllShow(Movie movie, City city) {
+            Map<Integer, Map<Theatre, List<Show>>> movieIdVsShows = cityVsMovieShows.get(city);
+            Map<Theatre, List<Show>> shows = movieIdVsShows == null ? null : movieIdVsShows.get(movie.getMovieId());
+            return shows == null ? Map.of() : new LinkedHashMap<>(shows);
+        }
+    }
+}
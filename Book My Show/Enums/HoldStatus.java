@@ -0,0 +1,9 @@
+package BookMyShow.Enums;
+
+public enum HoldStatus {
+
+    ACTIVE,
+    CONFIRMED,
+    RELEASED,
+    EXPIRED;
+}
@@ -0,0 +1,8 @@
+package BookMyShow.Enums;
+
+public enum SeatStatus {
+
+    FREE,
+    HELD,
+    BOOKED;
+}
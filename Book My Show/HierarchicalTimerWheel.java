@@ -0,0 +1,171 @@
+package BookMyShow;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+//Hierarchical hashed timer wheel (same layout as the classic kernel timer wheel).
+//LEVELS wheels of SLOTS buckets each, level 0 slot = 1 tick, level 1 slot = SLOTS ticks and so on.
+//Scheduling and cancelling are lock free: new timers go into a queue which the ticking thread drains,
+//cancel only flips a flag. On every tick the ticking thread expires exactly one level 0 bucket and,
+//when level 0 wraps around, re-distributes one bucket of the next level down (cascade).
+//So each tick is O(1) + number of timers that actually fire, no matter how many timers are outstanding.
+public class HierarchicalTimerWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELAY_TICKS = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final TimerEntry[][] wheels = new TimerEntry[LEVELS][SLOTS];
+    private final ConcurrentLinkedQueue<TimerEntry> pendingEntries = new ConcurrentLinkedQueue<>();
+
+    //next tick which is going to be processed, only touched by the ticking thread
+    private long currentTick;
+    private Thread tickerThread;
+
+    public HierarchicalTimerWheel(long tickDuration, TimeUnit unit) {
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.startNanos = System.nanoTime();
+    }
+
+    public static class TimerEntry {
+
+        private final Runnable task;
+        private final long deadlineTick;
+        private volatile boolean cancelled;
+        private TimerEntry next;
+
+        private TimerEntry(Runnable task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    public TimerEntry schedule(Runnable task, long delay, TimeUnit unit) {
+        long ticks = (unit.toNanos(delay) + tickNanos - 1) / tickNanos;
+        TimerEntry entry = new TimerEntry(task, tickOf(System.nanoTime()) + Math.max(1, ticks));
+        pendingEntries.offer(entry);
+        return entry;
+    }
+
+    //start a daemon thread which advances the wheel every tick
+    public synchronized void start() {
+        if (tickerThread != null) {
+            return;
+        }
+        tickerThread = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(tickNanos);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                advanceTo(tickOf(System.nanoTime()));
+            }
+        }, "timer-wheel");
+        tickerThread.setDaemon(true);
+        tickerThread.start();
+    }
+
+    public synchronized void stop() {
+        if (tickerThread != null) {
+            tickerThread.interrupt();
+            tickerThread = null;
+        }
+    }
+
+    //process every tick up to and including targetTick, must be called from one thread at a time
+    public synchronized void advanceTo(long targetTick) {
+        drainPending();
+        while (currentTick <= targetTick) {
+            processTick(currentTick);
+            currentTick++;
+        }
+    }
+
+    private long tickOf(long nanoTime) {
+        return (nanoTime - startNanos) / tickNanos;
+    }
+
+    private void drainPending() {
+        TimerEntry entry;
+        while ((entry = pendingEntries.poll()) != null) {
+            if (!entry.cancelled) {
+                place(entry);
+            }
+        }
+    }
+
+    private void processTick(long tick) {
+        int slot = (int) (tick & SLOT_MASK);
+        if (slot == 0) {
+            //level 0 wrapped, pull the due bucket of the upper level down, keep going up while they wrap too
+            for (int level = 1; level < LEVELS; level++) {
+                int upperSlot = (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+                cascade(level, upperSlot);
+                if (upperSlot != 0) {
+                    break;
+                }
+            }
+        }
+
+        TimerEntry entry = wheels[0][slot];
+        wheels[0][slot] = null;
+        while (entry != null) {
+            TimerEntry next = entry.next;
+            entry.next = null;
+            if (!entry.cancelled) {
+                try {
+                    entry.task.run();
+                } catch (RuntimeException e) {
+                    System.out.println("timer task failed: " + e.getMessage());
+                }
+            }
+            entry = next;
+        }
+    }
+
+    private void cascade(int level, int slot) {
+        TimerEntry entry = wheels[level][slot];
+        wheels[level][slot] = null;
+        while (entry != null) {
+            TimerEntry next = entry.next;
+            entry.next = null;
+            if (!entry.cancelled) {
+                place(entry);
+            }
+            entry = next;
+        }
+    }
+
+    private void place(TimerEntry entry) {
+        long deadline = entry.deadlineTick;
+        long delay = deadline - currentTick;
+        if (delay < 0) {
+            deadline = currentTick;
+            delay = 0;
+        } else if (delay > MAX_DELAY_TICKS) {
+            deadline = currentTick + MAX_DELAY_TICKS;
+            delay = MAX_DELAY_TICKS;
+        }
+
+        int level = 0;
+        while (level < LEVELS - 1 && delay >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = (int) ((deadline >>> (SLOT_BITS * level)) & SLOT_MASK);
+        entry.next = wheels[level][slot];
+        wheels[level][slot] = entry;
+    }
+}
@@ -0,0 +1,112 @@
+package BookMyShow;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+//Runs a request at most once per idempotency key, retries with the same key get the first result back.
+//The first caller stores a future under the key and does the work, retries arriving meanwhile wait on that
+//same future, so a retry storm on a hot show still costs one hold + confirm.
+//Keys live for ttlMillis and at most maxEntries are kept, the oldest go first. Every key gets the same ttl
+//so insertion order is also expiry order and a FIFO queue is enough for both.
+//Failed requests (any exception or error) and null results (ex: seats taken, hold expired) are not remembered,
+//the client can retry them with the same key and they run again.
+//The first caller and the retries waiting on it get the very same exception or null.
+public class IdempotencyTable<V> {
+
+    private final Map<String, Entry<V>> keyVsEntry = new ConcurrentHashMap<>();
+    private final Queue<Entry<V>> insertionOrder = new ArrayDeque<>();
+    private final long ttlMillis;
+    private final int maxEntries;
+    //forgotten entries still in insertionOrder, they do not count towards maxEntries
+    private int forgottenEntries;
+
+    IdempotencyTable(long ttlMillis, int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    public V execute(String key, Supplier<V> request) {
+
+        long now = System.currentTimeMillis();
+        Entry<V> entry = keyVsEntry.get(key);
+        if (entry == null || entry.expiresAtMillis <= now) {
+            Entry<V> newEntry = new Entry<>(key, now + ttlMillis);
+            //replace a missing or expired entry, only one caller wins
+            entry = keyVsEntry.compute(key, (k, existing) ->
+                    existing == null || existing.expiresAtMillis <= now ? newEntry : existing);
+            if (entry == newEntry) {
+                enqueue(newEntry, now);
+                V result;
+                try {
+                    result = request.get();
+                } catch (Throwable t) {
+                    //an Error too, otherwise the retries waiting on the future would block forever
+                    forget(newEntry);
+                    newEntry.result.completeExceptionally(t);
+                    throw t;
+                }
+                if (result == null) {
+                    forget(newEntry);
+                }
+                newEntry.result.complete(result);
+            }
+        }
+        try {
+            return entry.result.join();
+        } catch (CompletionException e) {
+            //join wraps the first caller's exception, hand out the original one
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    public int size() {
+        return keyVsEntry.size();
+    }
+
+    //only first attempts get here, retries never touch the queue
+    private synchronized void enqueue(Entry<V> entry, long now) {
+        insertionOrder.offer(entry);
+        Entry<V> eldest;
+        while ((eldest = insertionOrder.peek()) != null && (eldest.forgotten || eldest.expiresAtMillis <= now
+                || insertionOrder.size() - forgottenEntries > maxEntries)) {
+            insertionOrder.poll();
+            if (eldest.forgotten) {
+                forgottenEntries--;
+            } else {
+                keyVsEntry.remove(eldest.key, eldest);
+            }
+        }
+    }
+
+    //out of the map, the next attempt with the key runs the request again. the queue drops it once it gets to the head
+    private synchronized void forget(Entry<V> entry) {
+        keyVsEntry.remove(entry.key, entry);
+        entry.forgotten = true;
+        forgottenEntries++;
+    }
+
+    private static class Entry<V> {
+        final String key;
+        final long expiresAtMillis;
+        final CompletableFuture<V> result = new CompletableFuture<>();
+        //guarded by the table's lock
+        boolean forgotten;
+
+        Entry(String key, long expiresAtMillis) {
+            this.key = key;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
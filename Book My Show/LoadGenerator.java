@@ -0,0 +1,171 @@
+package BookMyShow;
+
+import BookMyShow.Enums.City;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+//Replays concurrent user sessions against BookingService and reports throughput and latency per operation.
+//Every user: search -> hold 2 seats -> confirm or release -> maybe cancel the booking.
+//
+//usage: LoadGenerator [users, comma separated] [theatres per city] [release %] [cancel %] [metrics on|off|compare]
+//ex:    LoadGenerator 1000,10000,100000,1000000 50 20 10
+//       LoadGenerator 100000 50 20 10 compare   (throughput with and without metrics, to see what they cost)
+public class LoadGenerator {
+
+    private static final int MAX_IN_FLIGHT = 10_000;
+
+    final int theatresPerCity;
+    final int releasePercent;
+    final int cancelPercent;
+
+    LoadGenerator(int theatresPerCity, int releasePercent, int cancelPercent) {
+        this.theatresPerCity = theatresPerCity;
+        this.releasePercent = releasePercent;
+        this.cancelPercent = cancelPercent;
+    }
+
+    public static void main(String args[]) throws Exception {
+
+        String users = args.length > 0 ? args[0] : "1000,10000,100000";
+        int theatresPerCity = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int releasePercent = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int cancelPercent = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        String metricsMode = args.length > 4 ? args[4] : "on";
+
+        LoadGenerator loadGenerator = new LoadGenerator(theatresPerCity, releasePercent, cancelPercent);
+        for (String userCount : users.split(",")) {
+            if (metricsMode.equals("compare")) {
+                loadGenerator.compareMetrics(Integer.parseInt(userCount.trim()));
+            } else {
+                loadGenerator.run(Integer.parseInt(userCount.trim()), !metricsMode.equals("off"));
+            }
+        }
+    }
+
+    //runs without and with metrics in turns, best of 3 each, so JIT warm up and GC noise hit both sides
+    void compareMetrics(int users) throws Exception {
+
+        double withoutMetrics = 0;
+        double withMetrics = 0;
+        for (int round = 0; round < 3; round++) {
+            withoutMetrics = Math.max(withoutMetrics, run(users, false));
+            withMetrics = Math.max(withMetrics, run(users, true));
+        }
+        System.out.printf("users=%d metrics overhead=%.2f%% (off %.0f sessions/s, on %.0f sessions/s)%n", users,
+                (withoutMetrics - withMetrics) / withoutMetrics * 100, withoutMetrics, withMetrics);
+    }
+
+    //returns sessions per second
+    double run(int users, boolean metricsEnabled) throws Exception {
+
+        MovieController movieController = new MovieController();
+        TheatreController theatreController = new TheatreController();
+        SeatHoldManager seatHoldManager = new SeatHoldManager(60 * 1000);
+        createCatalog(movieController, theatreController);
+        BookingService bookingService = new BookingService(movieController, theatreController, seatHoldManager,
+                metricsEnabled ? new BookingMetrics() : BookingMetrics.disabled());
+
+        City[] cities = City.values();
+
+        long start = System.nanoTime();
+        //sessions go out in batches, so at most MAX_IN_FLIGHT of them are queued or running at a time
+        //instead of every future (and its captured state) of a million users sitting in memory at once
+        List<CompletableFuture<Void>> sessions = new ArrayList<>(MAX_IN_FLIGHT);
+        for (int user = 0; user < users; user++) {
+            sessions.add(bookingService.submitSession(() -> {
+                runSession(bookingService, cities);
+                return null;
+            }));
+            if (sessions.size() == MAX_IN_FLIGHT || user == users - 1) {
+                CompletableFuture.allOf(sessions.toArray(new CompletableFuture<?>[0])).join();
+                sessions.clear();
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        bookingService.shutdown();
+        seatHoldManager.shutdown();
+
+        if (!metricsEnabled) {
+            System.out.printf("users=%d sessions/s=%.0f (metrics off)%n", users, users / (elapsedNanos / 1e9));
+            return users / (elapsedNanos / 1e9);
+        }
+        BookingMetrics.MetricsSnapshot metrics = bookingService.getMetrics().snapshot();
+        System.out.printf("users=%d sessions/s=%.0f ops/s=%.0f conflicts=%d%n", users,
+                users / (elapsedNanos / 1e9), metrics.getTotalOperations() / (elapsedNanos / 1e9), metrics.getConflicts());
+        for (BookingMetrics.Operation operation : BookingMetrics.Operation.values()) {
+            LatencyHistogram.Snapshot latency = metrics.getLatency(operation);
+            System.out.printf("  %-8s count=%-9d p50=%.1fus p99=%.1fus p999=%.1fus%n", operation, metrics.getCount(operation),
+                    latency.getValueAtPercentile(0.50) / 1e3, latency.getValueAtPercentile(0.99) / 1e3,
+                    latency.getValueAtPercentile(0.999) / 1e3);
+        }
+        return users / (elapsedNanos / 1e9);
+    }
+
+    //latencies and conflicts are recorded by the service itself, see BookingMetrics
+    private void runSession(BookingService bookingService, City[] cities) {
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        List<Show> shows = bookingService.searchShows(cities[random.nextInt(cities.length)], "KALKI");
+        if (shows.isEmpty()) {
+            return;
+        }
+
+        Show show = shows.get(random.nextInt(shows.size()));
+        int firstSeat = random.nextInt(show.getScreen().getSeatLayout().size() - 1);
+        SeatHold hold = bookingService.hold(show, List.of(firstSeat, firstSeat + 1));
+        if (hold == null) {
+            return;
+        }
+
+        if (random.nextInt(100) < releasePercent) {
+            bookingService.release(hold);
+            return;
+        }
+
+        Booking booking = bookingService.confirm(hold);
+
+        if (booking != null && random.nextInt(100) < cancelPercent) {
+            bookingService.cancel(booking);
+        }
+    }
+
+    private void createCatalog(MovieController movieController, TheatreController theatreController) {
+
+        Movie kalki = new Movie();
+        kalki.setMovieId(1);
+        kalki.setMovieName("KALKI");
+        kalki.setMovieDuration(180);
+
+        SeatLayout seatLayout = new SeatLayout(BookMyShow.createSeats());
+        int id = 0;
+        for (City city : City.values()) {
+            movieController.addMovie(kalki, city);
+            for (int i = 0; i < theatresPerCity; i++) {
+                Screen screen = new Screen();
+                screen.setScreenId(++id);
+                screen.setSeatLayout(seatLayout);
+
+                Theatre theatre = new Theatre();
+                theatre.setTheatreId(id);
+                theatre.setCity(city);
+                theatre.setScreen(new ArrayList<>(List.of(screen)));
+                for (int startTime : new int[]{10, 14, 18, 22}) {
+                    Show show = new Show();
+                    show.setShowId(id * 10 + startTime);
+                    show.setMovie(kalki);
+                    show.setScreen(screen);
+                    show.setShowStartTime(startTime);
+                    show.setShowDate(LocalDate.now());
+                    theatre.getShows().add(show);
+                }
+                theatreController.addTheatre(theatre, city);
+            }
+        }
+    }
+}
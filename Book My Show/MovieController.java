@@ -4,51 +4,366 @@ package BookMyShow;
 import BookMyShow.Enums.City;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class MovieController {
 
+    //the global name and id maps are split in this many shards, a write copies only the shards it touches
+    private static final int CATALOG_SHARDS = 64;
+
     Map<City, List<Movie>> cityVsMovies;
     List<Movie> allMovies;
 
+    //search indexes, one over all the movies and one per city
+    MovieSearchIndex allMoviesIndex;
+    Map<City, MovieSearchIndex> cityVsMovieIndex;
+    //prefix and fuzzy search are not on the booking path, they share a read lock with each other
+    ReadWriteLock searchIndexLock;
+
+    //what readers see: immutable, versioned and swapped in by the (serialised) writers in one reference write.
+    //a write copies only the cities and global shards it changed, the rest is shared with the previous version
+    volatile MovieCatalog movieCatalog;
+
     MovieController(){
         cityVsMovies = new HashMap<>();
         allMovies = new ArrayList<>();
+        allMoviesIndex = new MovieSearchIndex();
+        cityVsMovieIndex = new HashMap<>();
+        searchIndexLock = new ReentrantReadWriteLock();
+        List<Map<String, Movie>> nameShards = new ArrayList<>(CATALOG_SHARDS);
+        List<Map<Integer, Movie>> idShards = new ArrayList<>(CATALOG_SHARDS);
+        for (int i = 0; i < CATALOG_SHARDS; i++) {
+            nameShards.add(Collections.emptyMap());
+            idShards.add(Collections.emptyMap());
+        }
+        movieCatalog = new MovieCatalog(0, Collections.emptyMap(), Collections.emptyMap(),
+                Collections.unmodifiableList(nameShards), Collections.unmodifiableList(idShards));
+    }
+
+    static class MovieCatalog {
+
+        final long version;
+        final Map<City, List<Movie>> cityVsMovies;
+        final Map<City, Map<String, Movie>> cityVsNameVsMovie;
+        final List<Map<String, Movie>> nameShards;
+        final List<Map<Integer, Movie>> idShards;
+
+        MovieCatalog(long version, Map<City, List<Movie>> cityVsMovies, Map<City, Map<String, Movie>> cityVsNameVsMovie,
+                     List<Map<String, Movie>> nameShards, List<Map<Integer, Movie>> idShards) {
+            this.version = version;
+            this.cityVsMovies = cityVsMovies;
+            this.cityVsNameVsMovie = cityVsNameVsMovie;
+            this.nameShards = nameShards;
+            this.idShards = idShards;
+        }
+    }
+
+    //next catalog version being built by one write, every city and shard is copied the first time it is changed.
+    //only used with the controller's lock held
+    private class CatalogUpdate {
+
+        final MovieCatalog previous = movieCatalog;
+        final Map<City, Map<String, Movie>> changedCityNames = new EnumMap<>(City.class);
+        final Map<Integer, Map<String, Movie>> changedNameShards = new HashMap<>();
+        final Map<Integer, Map<Integer, Movie>> changedIdShards = new HashMap<>();
+
+        Map<String, Movie> cityNames(City city) {
+            return changedCityNames.computeIfAbsent(city,
+                    k -> new HashMap<>(previous.cityVsNameVsMovie.getOrDefault(k, Collections.emptyMap())));
+        }
+
+        Map<String, Movie> names(String name) {
+            return changedNameShards.computeIfAbsent(shard(name.hashCode()),
+                    k -> new HashMap<>(previous.nameShards.get(k)));
+        }
+
+        Map<Integer, Movie> ids(int movieId) {
+            return changedIdShards.computeIfAbsent(shard(Integer.hashCode(movieId)),
+                    k -> new HashMap<>(previous.idShards.get(k)));
+        }
+
+        //one reference swap, readers see all of this write or none of it
+        void publish() {
+
+            Map<City, List<Movie>> newCityVsMovies = new EnumMap<>(City.class);
+            newCityVsMovies.putAll(previous.cityVsMovies);
+            Map<City, Map<String, Movie>> newCityVsNameVsMovie = new EnumMap<>(City.class);
+            newCityVsNameVsMovie.putAll(previous.cityVsNameVsMovie);
+            for (Map.Entry<City, Map<String, Movie>> entry : changedCityNames.entrySet()) {
+                newCityVsMovies.put(entry.getKey(), List.copyOf(cityVsMovies.getOrDefault(entry.getKey(), List.of())));
+                newCityVsNameVsMovie.put(entry.getKey(), Collections.unmodifiableMap(entry.getValue()));
+            }
+
+            List<Map<String, Movie>> nameShards = previous.nameShards;
+            if (!changedNameShards.isEmpty()) {
+                nameShards = new ArrayList<>(previous.nameShards);
+                for (Map.Entry<Integer, Map<String, Movie>> entry : changedNameShards.entrySet()) {
+                    nameShards.set(entry.getKey(), Collections.unmodifiableMap(entry.getValue()));
+                }
+                nameShards = Collections.unmodifiableList(nameShards);
+            }
+            List<Map<Integer, Movie>> idShards = previous.idShards;
+            if (!changedIdShards.isEmpty()) {
+                idShards = new ArrayList<>(previous.idShards);
+                for (Map.Entry<Integer, Map<Integer, Movie>> entry : changedIdShards.entrySet()) {
+                    idShards.set(entry.getKey(), Collections.unmodifiableMap(entry.getValue()));
+                }
+                idShards = Collections.unmodifiableList(idShards);
+            }
+
+            movieCatalog = new MovieCatalog(previous.version + 1, Collections.unmodifiableMap(newCityVsMovies),
+                    Collections.unmodifiableMap(newCityVsNameVsMovie), nameShards, idShards);
+        }
     }
 
 
     //ADD movie to a particular city, make use of cityVsMovies map
-    void addMovie(Movie movie, City city) {
+    //copies the city list and lookup map for every call, loaders should go through addMovies
+    synchronized void addMovie(Movie movie, City city) {
+
+        searchIndexLock.writeLock().lock();
+        try {
+            CatalogUpdate update = new CatalogUpdate();
+            if (add(update, movie, city)) {
+                update.publish();
+            }
+        } finally {
+            searchIndexLock.writeLock().unlock();
+        }
+    }
+
 
-        allMovies.add(movie);
+    //bulk load, one new catalog version for the whole batch instead of one per movie
+    synchronized void addMovies(Map<City, ? extends Collection<Movie>> cityVsNewMovies) {
 
-        List<Movie> movies = cityVsMovies.getOrDefault(city, new ArrayList<>());
-        movies.add(movie);
-        cityVsMovies.put(city, movies);
+        searchIndexLock.writeLock().lock();
+        try {
+            CatalogUpdate update = new CatalogUpdate();
+            for (Map.Entry<City, ? extends Collection<Movie>> entry : cityVsNewMovies.entrySet()) {
+                for (Movie movie : entry.getValue()) {
+                    add(update, movie, entry.getKey());
+                }
+            }
+            update.publish();
+        } finally {
+            searchIndexLock.writeLock().unlock();
+        }
     }
 
 
-    Movie getMovieByName(String movieName) {
+    //movies known to the catalog which do not run in any city (ex: restored from a StateSnapshot)
+    synchronized void addUnscheduledMovies(Collection<Movie> movies) {
 
-        for(Movie movie : allMovies) {
-            if((movie.getMovieName()).equals(movieName)) {
-                return movie;
+        searchIndexLock.writeLock().lock();
+        try {
+            CatalogUpdate update = new CatalogUpdate();
+            for (Movie movie : movies) {
+                addToCatalog(update, movie);
             }
+            update.publish();
+        } finally {
+            searchIndexLock.writeLock().unlock();
+        }
+    }
+
+    synchronized List<Movie> getAllMovies() {
+        return new ArrayList<>(allMovies);
+    }
+
+    Movie getMovieByName(String movieName) {
+        String name = MovieSearchIndex.normalise(movieName);
+        return movieCatalog.nameShards.get(shard(name.hashCode())).get(name);
+    }
+
+    Movie getMovieByName(City city, String movieName) {
+        Map<String, Movie> nameVsMovie = movieCatalog.cityVsNameVsMovie.get(city);
+        return nameVsMovie == null ? null : nameVsMovie.get(MovieSearchIndex.normalise(movieName));
+    }
+
+    Movie getMovieById(int movieId) {
+        return movieCatalog.idShards.get(shard(Integer.hashCode(movieId))).get(movieId);
+    }
+
+    List<Movie> searchMoviesByPrefix(City city, String prefix, int limit) {
+        searchIndexLock.readLock().lock();
+        try {
+            MovieSearchIndex cityIndex = cityVsMovieIndex.get(city);
+            return cityIndex == null ? new ArrayList<>() : cityIndex.searchByPrefix(prefix, limit);
+        } finally {
+            searchIndexLock.readLock().unlock();
+        }
+    }
+
+    //word based search, tolerates small typos. ex: "kalky" finds "KALKI"
+    List<Movie> searchMovies(City city, String query, int limit) {
+        searchIndexLock.readLock().lock();
+        try {
+            MovieSearchIndex cityIndex = cityVsMovieIndex.get(city);
+            return cityIndex == null ? new ArrayList<>() : cityIndex.search(query, limit);
+        } finally {
+            searchIndexLock.readLock().unlock();
         }
-        return null;
     }
 
 
     List<Movie> getMoviesByCity(City city) {
-        return cityVsMovies.get(city);
+        return movieCatalog.cityVsMovies.get(city);
     }
+
+    long getCatalogVersion() {
+        return movieCatalog.version;
+    }
+
     //REMOVE movie from a particular city, make use of cityVsMovies map
+    synchronized boolean removeMovie(Movie movie, City city) {
+
+        searchIndexLock.writeLock().lock();
+        try {
+            MovieSearchIndex cityIndex = cityVsMovieIndex.get(city);
+            if (cityIndex == null || cityIndex.remove(movie.getMovieId()) == null) {
+                return false;
+            }
+            CatalogUpdate update = new CatalogUpdate();
+            cityVsMovies.get(city).removeIf(cityMovie -> cityMovie.getMovieId() == movie.getMovieId());
+            refreshName(update.cityNames(city), cityIndex, MovieSearchIndex.normalise(movie.getMovieName()));
+
+            //not running in any city anymore, drop it from the global catalog too, in the same version
+            boolean runsSomewhere = false;
+            for (MovieSearchIndex index : cityVsMovieIndex.values()) {
+                runsSomewhere |= index.contains(movie.getMovieId());
+            }
+            if (!runsSomewhere) {
+                remove(update, movie.getMovieId());
+            }
+            update.publish();
+            return true;
+        } finally {
+            searchIndexLock.writeLock().unlock();
+        }
+    }
 
     //UPDATE movie of a particular city, make use of cityVsMovies map
+    //movie details are shared across cities, so the movie is updated everywhere it runs
+    synchronized void updateMovie(Movie movie) {
+
+        searchIndexLock.writeLock().lock();
+        try {
+            if (!allMoviesIndex.contains(movie.getMovieId())) {
+                return;
+            }
+            CatalogUpdate update = new CatalogUpdate();
+            String oldName = allMoviesIndex.getIndexedName(movie.getMovieId());
+            String newName = MovieSearchIndex.normalise(movie.getMovieName());
+            replace(allMovies, movie);
+            allMoviesIndex.update(movie);
+            update.ids(movie.getMovieId()).put(movie.getMovieId(), movie);
+            refreshName(update.names(oldName), allMoviesIndex, oldName);
+            refreshName(update.names(newName), allMoviesIndex, newName);
+
+            for (Map.Entry<City, MovieSearchIndex> entry : cityVsMovieIndex.entrySet()) {
+                if (entry.getValue().contains(movie.getMovieId())) {
+                    entry.getValue().update(movie);
+                    replace(cityVsMovies.get(entry.getKey()), movie);
+                    Map<String, Movie> cityNames = update.cityNames(entry.getKey());
+                    refreshName(cityNames, entry.getValue(), oldName);
+                    refreshName(cityNames, entry.getValue(), newName);
+                }
+            }
+            update.publish();
+        } finally {
+            searchIndexLock.writeLock().unlock();
+        }
+    }
 
     //CRUD operation based on Movie ID, make use of allMovies list
+    synchronized Movie removeMovie(int movieId) {
+
+        searchIndexLock.writeLock().lock();
+        try {
+            CatalogUpdate update = new CatalogUpdate();
+            Movie movie = remove(update, movieId);
+            if (movie != null) {
+                update.publish();
+            }
+            return movie;
+        } finally {
+            searchIndexLock.writeLock().unlock();
+        }
+    }
 
+    //drops the movie from every index, list and lookup map. null if it is not in the catalog
+    private Movie remove(CatalogUpdate update, int movieId) {
 
+        String name = allMoviesIndex.getIndexedName(movieId);
+        Movie movie = allMoviesIndex.remove(movieId);
+        if (movie == null) {
+            return null;
+        }
+        allMovies.removeIf(m -> m.getMovieId() == movieId);
+        update.ids(movieId).remove(movieId);
+        refreshName(update.names(name), allMoviesIndex, name);
+
+        for (Map.Entry<City, MovieSearchIndex> entry : cityVsMovieIndex.entrySet()) {
+            if (entry.getValue().remove(movieId) != null) {
+                cityVsMovies.get(entry.getKey()).removeIf(m -> m.getMovieId() == movieId);
+                refreshName(update.cityNames(entry.getKey()), entry.getValue(), name);
+            }
+        }
+        return movie;
+    }
+
+    private void replace(List<Movie> movies, Movie movie) {
+        for (int i = 0; i < movies.size(); i++) {
+            if (movies.get(i).getMovieId() == movie.getMovieId()) {
+                movies.set(i, movie);
+            }
+        }
+    }
+
+    //adds the movie to the indexes, the live lists and the lookup maps. false if it already runs in the city
+    private boolean add(CatalogUpdate update, Movie movie, City city) {
+
+        String name = MovieSearchIndex.normalise(movie.getMovieName());
+        addToCatalog(update, movie);
+
+        MovieSearchIndex cityIndex = cityVsMovieIndex.computeIfAbsent(city, k -> new MovieSearchIndex());
+        if (cityIndex.contains(movie.getMovieId())) {
+            return false;
+        }
+        cityIndex.add(movie);
+        cityVsMovies.computeIfAbsent(city, k -> new ArrayList<>()).add(movie);
+        refreshName(update.cityNames(city), cityIndex, name);
+        return true;
+    }
+
+    private void addToCatalog(CatalogUpdate update, Movie movie) {
+        if (!allMoviesIndex.contains(movie.getMovieId())) {
+            String name = MovieSearchIndex.normalise(movie.getMovieName());
+            allMovies.add(movie);
+            allMoviesIndex.add(movie);
+            update.ids(movie.getMovieId()).put(movie.getMovieId(), movie);
+            refreshName(update.names(name), allMoviesIndex, name);
+        }
+    }
+
+    private static int shard(int hash) {
+        return (hash ^ (hash >>> 16)) & (CATALOG_SHARDS - 1);
+    }
+
+    //the lookup map follows the index for this one name, the index decides which movie wins a shared name
+    private static void refreshName(Map<String, Movie> nameVsMovie, MovieSearchIndex index, String name) {
+        Movie movie = index.getByName(name);
+        if (movie == null) {
+            nameVsMovie.remove(name);
+        } else {
+            nameVsMovie.put(name, movie);
+        }
+    }
 }
@@ -0,0 +1,240 @@
+package BookMyShow;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+//In memory index over movies, kept up to date on every add/remove/update.
+//  exact   : id -> movie, normalised name -> movie (hash lookups)
+//  prefix  : sorted normalised names, prefix query is a subMap range
+//  token   : word -> movie ids (inverted index), query words are ANDed
+//  fuzzy   : word trigram -> words, candidates are verified with a bounded edit distance
+public class MovieSearchIndex {
+
+    private final Map<Integer, Movie> idVsMovie = new HashMap<>();
+    //the name a movie was indexed under, needed to clean up when its name changes
+    private final Map<Integer, String> idVsIndexedName = new HashMap<>();
+    private final Map<String, Movie> nameVsMovie = new HashMap<>();
+    private final NavigableMap<String, Map<Integer, Movie>> sortedNames = new TreeMap<>();
+    private final Map<String, Set<Integer>> tokenVsMovieIds = new HashMap<>();
+    private final Map<String, Set<String>> trigramVsTokens = new HashMap<>();
+
+    public void add(Movie movie) {
+
+        if (idVsMovie.containsKey(movie.getMovieId())) {
+            remove(movie.getMovieId());
+        }
+
+        String name = normalise(movie.getMovieName());
+        idVsMovie.put(movie.getMovieId(), movie);
+        idVsIndexedName.put(movie.getMovieId(), name);
+        nameVsMovie.put(name, movie);
+        sortedNames.computeIfAbsent(name, k -> new LinkedHashMap<>()).put(movie.getMovieId(), movie);
+
+        for (String token : tokenize(name)) {
+            Set<Integer> movieIds = tokenVsMovieIds.get(token);
+            if (movieIds == null) {
+                movieIds = new HashSet<>();
+                tokenVsMovieIds.put(token, movieIds);
+                for (String trigram : trigrams(token)) {
+                    trigramVsTokens.computeIfAbsent(trigram, k -> new HashSet<>()).add(token);
+                }
+            }
+            movieIds.add(movie.getMovieId());
+        }
+    }
+
+    public Movie remove(int movieId) {
+
+        Movie movie = idVsMovie.remove(movieId);
+        if (movie == null) {
+            return null;
+        }
+
+        String name = idVsIndexedName.remove(movieId);
+        if (nameVsMovie.get(name) == movie) {
+            nameVsMovie.remove(name);
+        }
+
+        Map<Integer, Movie> sameName = sortedNames.get(name);
+        sameName.remove(movieId);
+        if (sameName.isEmpty()) {
+            sortedNames.remove(name);
+        } else if (!nameVsMovie.containsKey(name)) {
+            nameVsMovie.put(name, sameName.values().iterator().next());
+        }
+
+        for (String token : tokenize(name)) {
+            Set<Integer> movieIds = tokenVsMovieIds.get(token);
+            movieIds.remove(movieId);
+            if (movieIds.isEmpty()) {
+                tokenVsMovieIds.remove(token);
+                for (String trigram : trigrams(token)) {
+                    Set<String> tokens = trigramVsTokens.get(trigram);
+                    tokens.remove(token);
+                    if (tokens.isEmpty()) {
+                        trigramVsTokens.remove(trigram);
+                    }
+                }
+            }
+        }
+        return movie;
+    }
+
+    //movie details (for ex. name) changed, re-index it
+    public void update(Movie movie) {
+        remove(movie.getMovieId());
+        add(movie);
+    }
+
+    public boolean contains(int movieId) {
+        return idVsMovie.containsKey(movieId);
+    }
+
+    public int size() {
+        return idVsMovie.size();
+    }
+
+    public Movie getById(int movieId) {
+        return idVsMovie.get(movieId);
+    }
+
+    public Movie getByName(String movieName) {
+        return nameVsMovie.get(normalise(movieName));
+    }
+
+    //normalised name the movie is indexed under, null if it is not indexed
+    public String getIndexedName(int movieId) {
+        return idVsIndexedName.get(movieId);
+    }
+
+    public List<Movie> searchByPrefix(String prefix, int limit) {
+
+        List<Movie> result = new ArrayList<>();
+        String from = normalise(prefix);
+        for (Map<Integer, Movie> movies : sortedNames.subMap(from, true, from + Character.MAX_VALUE, false).values()) {
+            for (Movie movie : movies.values()) {
+                if (result.size() == limit) {
+                    return result;
+                }
+                result.add(movie);
+            }
+        }
+        return result;
+    }
+
+    //every word of the query has to match a word of the movie name, either exactly or within a small edit distance
+    public List<Movie> search(String query, int limit) {
+
+        Set<Integer> matchingIds = null;
+        for (String queryToken : tokenize(normalise(query))) {
+            Set<Integer> tokenMatches = new HashSet<>();
+            for (String token : similarTokens(queryToken)) {
+                tokenMatches.addAll(tokenVsMovieIds.get(token));
+            }
+            if (matchingIds == null) {
+                matchingIds = tokenMatches;
+            } else {
+                matchingIds.retainAll(tokenMatches);
+            }
+            if (matchingIds.isEmpty()) {
+                break;
+            }
+        }
+
+        List<Movie> result = new ArrayList<>();
+        if (matchingIds == null) {
+            return result;
+        }
+        for (Integer movieId : matchingIds) {
+            if (result.size() == limit) {
+                break;
+            }
+            result.add(idVsMovie.get(movieId));
+        }
+        return result;
+    }
+
+    private Collection<String> similarTokens(String queryToken) {
+
+        if (tokenVsMovieIds.containsKey(queryToken)) {
+            return List.of(queryToken);
+        }
+
+        int maxEdits = queryToken.length() <= 4 ? 1 : 2;
+        Set<String> candidates = new HashSet<>();
+        for (String trigram : trigrams(queryToken)) {
+            Set<String> tokens = trigramVsTokens.get(trigram);
+            if (tokens != null) {
+                candidates.addAll(tokens);
+            }
+        }
+
+        List<String> similar = new ArrayList<>();
+        for (String candidate : candidates) {
+            if (Math.abs(candidate.length() - queryToken.length()) <= maxEdits
+                    && editDistance(queryToken, candidate, maxEdits) <= maxEdits) {
+                similar.add(candidate);
+            }
+        }
+        return similar;
+    }
+
+    static String normalise(String text) {
+        return text == null ? "" : text.trim().toLowerCase();
+    }
+
+    private static List<String> tokenize(String normalisedText) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : normalisedText.split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    //padded so that short words still produce trigrams, "kalki" -> "$ka", "kal", "alk", "lki", "ki$"
+    private static Set<String> trigrams(String token) {
+        String padded = "$" + token + "$";
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    //Levenshtein distance, gives up as soon as a whole row is above maxEdits
+    private static int editDistance(String a, String b, int maxEdits) {
+
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
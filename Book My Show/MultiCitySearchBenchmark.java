@@ -0,0 +1,109 @@
+package BookMyShow;
+
+import BookMyShow.Enums.City;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+//Nationwide "shows of a movie today" for 1 to 200 cities: one city after the other (getShowsBetween per city,
+//then sort everything) against MultiCityShowSearch's fork join fan out with top K cut off.
+//City is an enum with only a few values, so every simulated city is its own TheatreController.
+//
+//usage: MultiCitySearchBenchmark [top K] [theatres per city] [millis per run]
+public class MultiCitySearchBenchmark {
+
+    public static void main(String args[]) {
+
+        int limit = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int theatresPerCity = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        long millis = args.length > 2 ? Long.parseLong(args[2]) : 500;
+
+        Movie kalki = new Movie();
+        kalki.setMovieId(1);
+        kalki.setMovieName("KALKI");
+        LocalDate today = LocalDate.now();
+        SeatLayout seatLayout = new SeatLayout(BookMyShow.createSeats());
+
+        List<TheatreController> cities = new ArrayList<>();
+        System.out.printf("%-8s %16s %16s%n", "cities", "sequential us/op", "fork join us/op");
+        for (int cityCount : new int[]{1, 2, 5, 10, 25, 50, 100, 200}) {
+            while (cities.size() < cityCount) {
+                cities.add(createCity(cities.size(), kalki, today, theatresPerCity, seatLayout));
+            }
+
+            List<MultiCityShowSearch.ShowSource> sources = new ArrayList<>();
+            for (TheatreController city : cities) {
+                sources.add(movie -> city.getShowsByTime(movie, City.Bangalore));
+            }
+            MultiCityShowSearch search = new MultiCityShowSearch(sources, ForkJoinPool.commonPool());
+
+            double sequential = run(millis, () -> {
+                List<Show> shows = new ArrayList<>();
+                for (TheatreController city : cities) {
+                    shows.addAll(city.getShowsBetween(kalki, City.Bangalore, today, 9, 23));
+                }
+                shows.sort(Comparator.comparingInt(Show::getShowStartTime));
+                return shows.subList(0, Math.min(limit, shows.size()));
+            });
+            double forkJoin = run(millis, () -> search.search(kalki, today, 9, 23, limit));
+            System.out.printf("%-8d %16.1f %16.1f%n", cityCount, sequential, forkJoin);
+        }
+    }
+
+    //average micros per query
+    private static double run(long millis, Supplier<List<Show>> query) {
+
+        //warm up
+        for (int i = 0; i < 200; i++) {
+            query.get();
+        }
+        long deadline = System.nanoTime() + millis * 1_000_000L;
+        long start = System.nanoTime();
+        long queries = 0;
+        long found = 0;
+        while (System.nanoTime() < deadline) {
+            found += query.get().size();
+            queries++;
+        }
+        if (found == 0) {
+            throw new IllegalStateException("no shows found");
+        }
+        return (System.nanoTime() - start) / 1e3 / queries;
+    }
+
+    //theatres with 4 shows a day for a week, start times shifted per city
+    private static TheatreController createCity(int cityId, Movie movie, LocalDate today, int theatres, SeatLayout seatLayout) {
+
+        TheatreController theatreController = new TheatreController();
+        List<Theatre> cityTheatres = new ArrayList<>();
+        int showId = cityId * 1_000_000;
+        for (int t = 0; t < theatres; t++) {
+            Screen screen = new Screen();
+            screen.setScreenId(t);
+            screen.setSeatLayout(seatLayout);
+
+            Theatre theatre = new Theatre();
+            theatre.setTheatreId(cityId * 1_000 + t);
+            theatre.setCity(City.Bangalore);
+            theatre.setScreen(new ArrayList<>(List.of(screen)));
+            for (int day = 0; day < 7; day++) {
+                for (int startTime : new int[]{9, 13, 17, 21}) {
+                    Show show = new Show();
+                    show.setShowId(++showId);
+                    show.setMovie(movie);
+                    show.setScreen(screen);
+                    show.setShowStartTime(startTime + (cityId + t) % 3);
+                    show.setShowDate(today.plusDays(day));
+                    theatre.getShows().add(show);
+                }
+            }
+            cityTheatres.add(theatre);
+        }
+        theatreController.addTheatres(cityTheatres);
+        return theatreController;
+    }
+}
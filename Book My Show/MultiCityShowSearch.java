@@ -0,0 +1,165 @@
+package BookMyShow;
+
+import BookMyShow.Enums.City;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+//"Where is KALKI playing today" across many cities at once.
+//The cities are split in halves on a fork join pool until one city is left, each city reads its
+//time ordered show index (TheatreController.getShowsByTime) and the sorted partial results are merged
+//back on the way up, so the answer comes out ordered by start time without a final sort.
+//Top K: a city never returns more than limit shows, and once some city found limit shows starting
+//before time T every other city stops at T, nothing after it can make the top K.
+public class MultiCityShowSearch {
+
+    //time ordered shows of a movie in one city (or any other partition of the catalog)
+    interface ShowSource {
+        NavigableMap<Long, Show> getShowsByTime(Movie movie);
+    }
+
+    private final List<ShowSource> sources;
+    private final ForkJoinPool pool;
+
+    MultiCityShowSearch(List<ShowSource> sources, ForkJoinPool pool) {
+        this.sources = List.copyOf(sources);
+        this.pool = pool;
+    }
+
+    //every city of one TheatreController
+    static MultiCityShowSearch forCities(TheatreController theatreController) {
+        List<ShowSource> sources = new ArrayList<>();
+        for (City city : City.values()) {
+            sources.add(movie -> theatreController.getShowsByTime(movie, city));
+        }
+        return new MultiCityShowSearch(sources, ForkJoinPool.commonPool());
+    }
+
+    //first limit shows of the movie on the date starting between fromHour and toHour (both included),
+    //over all cities, ordered by start time
+    public List<Show> search(Movie movie, LocalDate date, int fromHour, int toHour, int limit) {
+
+        if (sources.isEmpty() || limit <= 0 || fromHour > toHour) {
+            return List.of();
+        }
+        long fromKey = TheatreController.timeKey(date, fromHour, Integer.MIN_VALUE);
+        long toKey = TheatreController.timeKey(date, toHour, Integer.MAX_VALUE);
+        SearchTask task = new SearchTask(movie, fromKey, new AtomicLong(toKey), limit, 0, sources.size());
+        Hits hits = pool.invoke(task);
+
+        List<Show> shows = new ArrayList<>(hits.size);
+        for (int i = 0; i < hits.size; i++) {
+            shows.add(hits.shows[i]);
+        }
+        return shows;
+    }
+
+    private class SearchTask extends RecursiveTask<Hits> {
+
+        private static final long serialVersionUID = 1L;
+
+        final Movie movie;
+        final long fromKey;
+        //highest time key still worth reading, only goes down
+        final AtomicLong cutoff;
+        final int limit;
+        final int from;
+        final int to;
+
+        SearchTask(Movie movie, long fromKey, AtomicLong cutoff, int limit, int from, int to) {
+            this.movie = movie;
+            this.fromKey = fromKey;
+            this.cutoff = cutoff;
+            this.limit = limit;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Hits compute() {
+            if (to - from == 1) {
+                return searchCity(sources.get(from));
+            }
+            int mid = (from + to) >>> 1;
+            SearchTask left = new SearchTask(movie, fromKey, cutoff, limit, from, mid);
+            SearchTask right = new SearchTask(movie, fromKey, cutoff, limit, mid, to);
+            left.fork();
+            Hits rightHits = right.compute();
+            return Hits.merge(left.join(), rightHits, limit);
+        }
+
+        private Hits searchCity(ShowSource source) {
+
+            Hits hits = new Hits(Math.min(limit, 16));
+            long maxKey = cutoff.get();
+            if (maxKey < fromKey) {
+                return hits;
+            }
+            Iterator<Map.Entry<Long, Show>> shows = source.getShowsByTime(movie).subMap(fromKey, true, maxKey, true)
+                    .entrySet().iterator();
+            while (hits.size < limit && shows.hasNext()) {
+                Map.Entry<Long, Show> entry = shows.next();
+                if (entry.getKey() > cutoff.get()) {
+                    break;
+                }
+                hits.add(entry.getKey(), entry.getValue());
+            }
+            if (hits.size == limit) {
+                //this city alone fills the top K, nothing later than its last show is needed anymore
+                cutoff.accumulateAndGet(hits.keys[limit - 1], Math::min);
+            }
+            return hits;
+        }
+    }
+
+    //shows sorted by time key, at most limit of them
+    private static class Hits {
+
+        long[] keys;
+        Show[] shows;
+        int size;
+
+        Hits(int capacity) {
+            this.keys = new long[capacity];
+            this.shows = new Show[capacity];
+        }
+
+        void add(long key, Show show) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                shows = Arrays.copyOf(shows, size * 2);
+            }
+            keys[size] = key;
+            shows[size] = show;
+            size++;
+        }
+
+        static Hits merge(Hits left, Hits right, int limit) {
+            if (right.size == 0) {
+                return left;
+            }
+            if (left.size == 0) {
+                return right;
+            }
+            Hits merged = new Hits(Math.min(limit, left.size + right.size));
+            int l = 0;
+            int r = 0;
+            while (merged.size < limit && (l < left.size || r < right.size)) {
+                if (r == right.size || (l < left.size && left.keys[l] <= right.keys[r])) {
+                    merged.add(left.keys[l], left.shows[l++]);
+                } else {
+                    merged.add(right.keys[r], right.shows[r++]);
+                }
+            }
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package BookMyShow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+//Sends user notifications off the booking path. Callers only enqueue, one background thread takes
+//everything queued so far and hands it to the sender as one batch (ex: one push/email provider call).
+public class NotificationDispatcher {
+
+    private static final int MAX_BATCH = 256;
+
+    private final BlockingQueue<String> pending = new LinkedBlockingQueue<>();
+    private final Consumer<List<String>> sender;
+    private final Thread dispatcherThread;
+
+    NotificationDispatcher(Consumer<List<String>> sender) {
+        this.sender = sender;
+        this.dispatcherThread = new Thread(this::dispatchLoop, "notification-dispatcher");
+        this.dispatcherThread.setDaemon(true);
+        this.dispatcherThread.start();
+    }
+
+    public void notify(String message) {
+        pending.add(message);
+    }
+
+    public void shutdown() {
+        dispatcherThread.interrupt();
+    }
+
+    private void dispatchLoop() {
+        List<String> batch = new ArrayList<>(MAX_BATCH);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(pending.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            pending.drainTo(batch, MAX_BATCH - 1);
+            try {
+                sender.accept(batch);
+            } catch (RuntimeException e) {
+                System.out.println("sending " + batch.size() + " notifications failed: " + e.getMessage());
+            }
+            batch = new ArrayList<>(MAX_BATCH);
+        }
+    }
+}
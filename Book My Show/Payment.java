@@ -3,6 +3,22 @@ package BookMyShow;
 public class Payment {
 
     int paymentId;
+    int amount;
     //Other payment details
-}
 
+    public int getPaymentId() {
+        return paymentId;
+    }
+
+    public void setPaymentId(int paymentId) {
+        this.paymentId = paymentId;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+
+    public void setAmount(int amount) {
+        this.amount = amount;
+    }
+}
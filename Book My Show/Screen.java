@@ -1,12 +1,12 @@
 package BookMyShow;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class Screen {
 
     int screenId;
-    List<Seat> seats = new ArrayList<>();
+    //seat plan, can be shared by all the screens with the same plan
+    SeatLayout seatLayout = new SeatLayout(List.of());
 
     public int getScreenId() {
         return screenId;
@@ -16,12 +16,20 @@ public class Screen {
         this.screenId = screenId;
     }
 
+    //Seat objects are created on every call, prefer getSeatLayout on hot paths
     public List<Seat> getSeats() {
-        return seats;
+        return seatLayout.toSeats();
     }
 
     public void setSeats(List<Seat> seats) {
-        this.seats = seats;
+        this.seatLayout = new SeatLayout(seats);
+    }
+
+    public SeatLayout getSeatLayout() {
+        return seatLayout;
     }
-}
 
+    public void setSeatLayout(SeatLayout seatLayout) {
+        this.seatLayout = seatLayout;
+    }
+}
@@ -0,0 +1,161 @@
+package BookMyShow;
+
+import BookMyShow.Enums.SeatCategory;
+import BookMyShow.Enums.SeatStatus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+//Answers "best N adjacent free seats in a category" for one show.
+//Each category has a segment tree over its seats, in the preferred order given by the SeatLayout.
+//Every node keeps the longest free run starting at its left end, ending at its right end and anywhere inside,
+//runs are only joined when both sides are in the same row. Query and update are O(log n).
+//Only the three run arrays are per show, seat order and rows come from the shared layout.
+public class SeatFinder {
+
+    private final SeatLayout seatLayout;
+    private final FreeRunTree[] trees;
+
+    SeatFinder(SeatLayout seatLayout) {
+        this.seatLayout = seatLayout;
+        SeatCategory[] categories = SeatCategory.values();
+        trees = new FreeRunTree[categories.length];
+        for (SeatCategory category : categories) {
+            trees[category.ordinal()] = new FreeRunTree(seatLayout.getCategoryOrder(category));
+        }
+    }
+
+    //fill all the trees from the current seat state in O(n)
+    synchronized void build(SeatStatusMap seatStatusMap) {
+        for (FreeRunTree tree : trees) {
+            tree.build(seatStatusMap);
+        }
+    }
+
+    //re-read the seat state after it changed, reading instead of applying the change
+    //makes concurrent updates of the same seat converge to the latest state
+    synchronized void refresh(int seatIndex, SeatStatusMap seatStatusMap) {
+        FreeRunTree tree = trees[seatLayout.getSeatCategory(seatIndex).ordinal()];
+        tree.set(seatLayout.getPosition(seatIndex), seatStatusMap.getStatus(seatIndex) == SeatStatus.FREE);
+    }
+
+    //seat ids of the best run of n adjacent free seats, empty if there is none
+    public synchronized List<Integer> findBestSeats(SeatCategory category, int n) {
+        if (n <= 0) {
+            return Collections.emptyList();
+        }
+        return trees[category.ordinal()].find(n);
+    }
+
+    public synchronized int getLongestFreeRun(SeatCategory category) {
+        FreeRunTree tree = trees[category.ordinal()];
+        return tree.size == 0 ? 0 : tree.best[1];
+    }
+
+    private class FreeRunTree {
+
+        final int size;
+        //position in the tree -> seat index in the layout
+        final int[] seatIndexes;
+        //per node: free run touching the left end, touching the right end, longest anywhere
+        final int[] prefix;
+        final int[] suffix;
+        final int[] best;
+
+        FreeRunTree(int[] seatIndexes) {
+            this.size = seatIndexes.length;
+            this.seatIndexes = seatIndexes;
+            prefix = new int[4 * size];
+            suffix = new int[4 * size];
+            best = new int[4 * size];
+        }
+
+        void build(SeatStatusMap seatStatusMap) {
+            if (size > 0) {
+                build(1, 0, size - 1, seatStatusMap);
+            }
+        }
+
+        private void build(int node, int lo, int hi, SeatStatusMap seatStatusMap) {
+            if (lo == hi) {
+                int value = seatStatusMap.getStatus(seatIndexes[lo]) == SeatStatus.FREE ? 1 : 0;
+                prefix[node] = suffix[node] = best[node] = value;
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            build(2 * node, lo, mid, seatStatusMap);
+            build(2 * node + 1, mid + 1, hi, seatStatusMap);
+            merge(node, lo, mid, hi);
+        }
+
+        void set(int position, boolean free) {
+            set(1, 0, size - 1, position, free ? 1 : 0);
+        }
+
+        private void set(int node, int lo, int hi, int position, int value) {
+            if (lo == hi) {
+                prefix[node] = suffix[node] = best[node] = value;
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            if (position <= mid) {
+                set(2 * node, lo, mid, position, value);
+            } else {
+                set(2 * node + 1, mid + 1, hi, position, value);
+            }
+            merge(node, lo, mid, hi);
+        }
+
+        private boolean sameRow(int position, int nextPosition) {
+            return seatLayout.getRow(seatIndexes[position]) == seatLayout.getRow(seatIndexes[nextPosition]);
+        }
+
+        private void merge(int node, int lo, int mid, int hi) {
+            int left = 2 * node;
+            int right = 2 * node + 1;
+            boolean joined = sameRow(mid, mid + 1);
+
+            prefix[node] = prefix[left] == mid - lo + 1 && joined ? prefix[left] + prefix[right] : prefix[left];
+            suffix[node] = suffix[right] == hi - mid && joined ? suffix[right] + suffix[left] : suffix[right];
+            best[node] = Math.max(Math.max(best[left], best[right]), joined ? suffix[left] + prefix[right] : 0);
+        }
+
+        //leftmost run of n free seats in the preferred order
+        List<Integer> find(int n) {
+            if (size == 0 || best[1] < n) {
+                return Collections.emptyList();
+            }
+
+            int node = 1;
+            int lo = 0;
+            int hi = size - 1;
+            int start;
+            while (true) {
+                if (lo == hi) {
+                    start = lo;
+                    break;
+                }
+                int mid = (lo + hi) >>> 1;
+                int left = 2 * node;
+                int right = 2 * node + 1;
+                if (best[left] >= n) {
+                    node = left;
+                    hi = mid;
+                } else if (sameRow(mid, mid + 1) && suffix[left] + prefix[right] >= n) {
+                    start = mid - suffix[left] + 1;
+                    break;
+                } else {
+                    node = right;
+                    lo = mid + 1;
+                }
+            }
+
+            List<Integer> result = new ArrayList<>(n);
+            for (int i = start; i < start + n; i++) {
+                result.add(seatLayout.getSeatId(seatIndexes[i]));
+            }
+            return result;
+        }
+    }
+}
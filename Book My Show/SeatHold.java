@@ -0,0 +1,50 @@
+package BookMyShow;
+
+import BookMyShow.Enums.HoldStatus;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+//Seats kept aside for one user while the payment is going on.
+//The hold status is the single decision point between confirm, release and expiry,
+//whoever moves it out of ACTIVE first is the only one allowed to touch the seats.
+public class SeatHold {
+
+    long holdId;
+    Show show;
+    List<Integer> seatIds;
+    long expiresAtMillis;
+    AtomicReference<HoldStatus> status = new AtomicReference<>(HoldStatus.ACTIVE);
+    HierarchicalTimerWheel.TimerEntry expiryTimer;
+
+    SeatHold(long holdId, Show show, List<Integer> seatIds, long expiresAtMillis) {
+        this.holdId = holdId;
+        this.show = show;
+        this.seatIds = List.copyOf(seatIds);
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public long getHoldId() {
+        return holdId;
+    }
+
+    public Show getShow() {
+        return show;
+    }
+
+    public List<Integer> getSeatIds() {
+        return seatIds;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    public HoldStatus getStatus() {
+        return status.get();
+    }
+
+    boolean finish(HoldStatus finalStatus) {
+        return status.compareAndSet(HoldStatus.ACTIVE, finalStatus);
+    }
+}
@@ -0,0 +1,137 @@
+package BookMyShow;
+
+import BookMyShow.Enums.HoldStatus;
+import BookMyShow.Enums.SeatCategory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Creates time bounded seat holds and expires them through a single timer wheel,
+//one wheel entry per hold instead of one scheduled task per hold.
+public class SeatHoldManager {
+
+    private final long holdTtlMillis;
+    private final HierarchicalTimerWheel expiryWheel;
+    private final AtomicLong holdIdGenerator = new AtomicLong();
+    //null when bookings are not journaled
+    private volatile BookingJournal bookingJournal;
+
+    SeatHoldManager(long holdTtlMillis) {
+        this.holdTtlMillis = holdTtlMillis;
+        this.expiryWheel = new HierarchicalTimerWheel(100, TimeUnit.MILLISECONDS);
+        this.expiryWheel.start();
+    }
+
+    //from now on a booking is only handed out once its seat changes are on disk
+    public void setBookingJournal(BookingJournal bookingJournal) {
+        this.bookingJournal = bookingJournal;
+    }
+
+    //returns null if the seat is not free
+    public SeatHold holdSeat(Show show, int seatId) {
+        return holdSeats(show, List.of(seatId));
+    }
+
+    //all or nothing, returns null if any of the seats is not free.
+    //a seat id given twice is rejected up front with IllegalArgumentException
+    public SeatHold holdSeats(Show show, List<Integer> seatIds) {
+
+        if (new HashSet<>(seatIds).size() != seatIds.size()) {
+            throw new IllegalArgumentException("duplicate seat ids " + seatIds);
+        }
+        if (seatIds.isEmpty() || !show.holdSeats(seatIds)) {
+            return null;
+        }
+
+        SeatHold hold = new SeatHold(holdIdGenerator.incrementAndGet(), show, seatIds,
+                System.currentTimeMillis() + holdTtlMillis);
+        hold.expiryTimer = expiryWheel.schedule(() -> expire(hold), holdTtlMillis, TimeUnit.MILLISECONDS);
+        return hold;
+    }
+
+    //best n adjacent seats of the category, ex: best 4 seats together in GOLD.
+    //another user can take the seats between find and hold, in that case look again
+    public SeatHold holdBestSeats(Show show, SeatCategory category, int n) {
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            List<Integer> seatIds = show.findBestSeats(category, n);
+            if (seatIds.isEmpty()) {
+                return null;
+            }
+            SeatHold hold = holdSeats(show, seatIds);
+            if (hold != null) {
+                return hold;
+            }
+        }
+        return null;
+    }
+
+    //payment done, turn the hold into a booking. returns null if the hold already expired or was released,
+    //or if the booking could not be journaled, the seats are given back then
+    public Booking confirm(SeatHold hold) {
+
+        if (!hold.finish(HoldStatus.CONFIRMED)) {
+            return null;
+        }
+        hold.expiryTimer.cancel();
+
+        Show show = hold.getShow();
+        for (int seatId : hold.getSeatIds()) {
+            show.confirmSeat(seatId);
+        }
+        BookingJournal journal = bookingJournal;
+        if (journal != null) {
+            try {
+                journal.awaitDurable();
+            } catch (IOException e) {
+                System.out.println("Booking not saved, seats given back: " + e.getMessage());
+                for (int seatId : hold.getSeatIds()) {
+                    show.cancelSeat(seatId);
+                }
+                return null;
+            }
+        }
+
+        Booking booking = new Booking();
+        SeatLayout seatLayout = show.getScreen().getSeatLayout();
+        List<Seat> bookedSeats = new ArrayList<>();
+        for (int seatId : hold.getSeatIds()) {
+            bookedSeats.add(seatLayout.toSeat(seatLayout.indexOf(seatId)));
+        }
+        booking.setBookedSeats(bookedSeats);
+        booking.setShow(show);
+        return booking;
+    }
+
+    //user went away or payment failed
+    public boolean release(SeatHold hold) {
+
+        if (!hold.finish(HoldStatus.RELEASED)) {
+            return false;
+        }
+        hold.expiryTimer.cancel();
+        freeSeats(hold);
+        return true;
+    }
+
+    public void shutdown() {
+        expiryWheel.stop();
+    }
+
+    private void expire(SeatHold hold) {
+
+        if (hold.finish(HoldStatus.EXPIRED)) {
+            freeSeats(hold);
+        }
+    }
+
+    private void freeSeats(SeatHold hold) {
+        for (int seatId : hold.getSeatIds()) {
+            hold.getShow().releaseSeat(seatId);
+        }
+    }
+}
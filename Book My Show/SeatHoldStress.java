@@ -0,0 +1,153 @@
+package BookMyShow;
+
+import BookMyShow.Enums.SeatCategory;
+import BookMyShow.Enums.SeatStatus;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//Races overlapping group holds on one show from many threads and checks the all or nothing guarantee.
+//Every thread holds 2 to 4 adjacent seats (some groups span two SeatStatusMap words), marks itself as the
+//owner of each seat it got, then releases, or confirms and cancels. Fails with IllegalStateException when
+//  - a seat is owned by two holds at the same time
+//  - a hold hands back a seat which is not HELD
+//  - seats are left HELD / BOOKED or the free seat counters are off once all threads are done
+//  - a seat id given twice is not rejected
+//
+//usage: SeatHoldStress [threads] [holds per thread]
+//ex:    SeatHoldStress 16 200000
+public class SeatHoldStress {
+
+    public static void main(String args[]) throws Exception {
+
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int holdsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        SeatHoldManager seatHoldManager = new SeatHoldManager(60 * 1000);
+        Show show = createShow();
+        int seats = show.getSeatStatusMap().getCapacity();
+
+        checkDuplicatesRejected(seatHoldManager, show);
+
+        //seat index -> owner (thread + 1), 0 when nobody owns it
+        AtomicIntegerArray owners = new AtomicIntegerArray(seats);
+        LongAdder held = new LongAdder();
+        LongAdder conflicts = new LongAdder();
+        LongAdder doubleOwned = new LongAdder();
+        LongAdder notHeld = new LongAdder();
+
+        long start = System.nanoTime();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int owner = t + 1;
+            workers.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < holdsPerThread; i++) {
+                    int size = 2 + random.nextInt(3);
+                    int first = random.nextInt(seats - size + 1);
+                    List<Integer> seatIds = new ArrayList<>(size);
+                    for (int s = first; s < first + size; s++) {
+                        seatIds.add(s);
+                    }
+
+                    SeatHold hold = seatHoldManager.holdSeats(show, seatIds);
+                    if (hold == null) {
+                        conflicts.increment();
+                        continue;
+                    }
+                    held.increment();
+                    for (int seatId : seatIds) {
+                        if (!owners.compareAndSet(seatId, 0, owner)) {
+                            doubleOwned.increment();
+                        }
+                        if (show.getSeatStatus(seatId) != SeatStatus.HELD) {
+                            notHeld.increment();
+                        }
+                    }
+                    //give up ownership before the seats can be taken again
+                    for (int seatId : seatIds) {
+                        owners.compareAndSet(seatId, owner, 0);
+                    }
+                    if (random.nextBoolean()) {
+                        seatHoldManager.release(hold);
+                    } else {
+                        Booking booking = seatHoldManager.confirm(hold);
+                        for (Seat seat : booking.getBookedSeats()) {
+                            show.cancelSeat(seat.getSeatId());
+                        }
+                    }
+                }
+            }, "seat-hold-stress-" + t));
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        seatHoldManager.shutdown();
+
+        int leftOver = show.getSeatStatusMap().getSeatIndexes(SeatStatus.HELD).size()
+                + show.getSeatStatusMap().getSeatIndexes(SeatStatus.BOOKED).size();
+        System.out.printf("threads=%d holds/s=%.0f held=%d conflicts=%d double owned=%d not held=%d left over=%d%n",
+                threads, threads * (double) holdsPerThread / (elapsedNanos / 1e9), held.sum(), conflicts.sum(),
+                doubleOwned.sum(), notHeld.sum(), leftOver);
+
+        if (doubleOwned.sum() != 0 || notHeld.sum() != 0) {
+            throw new IllegalStateException("seats were handed to two holds at once");
+        }
+        if (leftOver != 0 || show.getAvailableSeatCount() != seats) {
+            throw new IllegalStateException("seats left behind: " + leftOver + " not free, free counter "
+                    + show.getAvailableSeatCount() + " of " + seats);
+        }
+        for (SeatCategory category : SeatCategory.values()) {
+            int free = show.getScreen().getSeatLayout().getSeatCount(category);
+            if (show.getAvailableSeatCount(category) != free) {
+                throw new IllegalStateException(category + " free counter is " + show.getAvailableSeatCount(category)
+                        + ", expected " + free);
+            }
+        }
+        System.out.println("OK");
+    }
+
+    private static void checkDuplicatesRejected(SeatHoldManager seatHoldManager, Show show) {
+        try {
+            seatHoldManager.holdSeats(show, List.of(5, 6, 5));
+            throw new IllegalStateException("duplicate seat ids were accepted");
+        } catch (IllegalArgumentException expected) {
+            //nothing may be held after the rejected call
+        }
+        try {
+            show.holdSeats(List.of(7, 7));
+            throw new IllegalStateException("duplicate seat ids were accepted");
+        } catch (IllegalArgumentException expected) {
+        }
+        if (show.getAvailableSeatCount() != show.getSeatStatusMap().getCapacity()) {
+            throw new IllegalStateException("a rejected hold left seats behind");
+        }
+    }
+
+    private static Show createShow() {
+
+        Movie movie = new Movie();
+        movie.setMovieId(1);
+        movie.setMovieName("KALKI");
+
+        Screen screen = new Screen();
+        screen.setScreenId(1);
+        screen.setSeatLayout(new SeatLayout(BookMyShow.createSeats()));
+
+        Show show = new Show();
+        show.setShowId(1);
+        show.setMovie(movie);
+        show.setScreen(screen);
+        show.setShowStartTime(18);
+        show.setShowDate(LocalDate.now());
+        return show;
+    }
+}
@@ -0,0 +1,175 @@
+package BookMyShow;
+
+import BookMyShow.Enums.SeatCategory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+//Immutable seat plan of a screen (flyweight). Seat details are kept in primitive arrays indexed by
+//seat index, and one layout can be shared by every screen with the same plan and by every show on them.
+//Per show state (SeatStatusMap, SeatFinder) only stores what changes, keyed by the same seat index.
+public class SeatLayout {
+
+    private static final SeatCategory[] CATEGORIES = SeatCategory.values();
+
+    private final int[] seatIds;
+    private final int[] rows;
+    private final byte[] categories;
+    //seatId -> seat index, null when seat ids are already 0..n-1 in order or too sparse for an array
+    private final int[] seatIdToIndex;
+    //seatId -> seat index when the ids are sparse (ex: 101, 5001, ...), an array would be mostly empty
+    private final Map<Integer, Integer> sparseSeatIdToIndex;
+    private final int[] seatCountByCategory = new int[CATEGORIES.length];
+
+    //seat finder order: per category, seat indexes row by row with the preferred rows first
+    private final int[][] categoryOrder = new int[CATEGORIES.length][];
+    private final int[] indexToPosition;
+
+    public SeatLayout(List<Seat> seats) {
+
+        int size = seats.size();
+        seatIds = new int[size];
+        rows = new int[size];
+        categories = new byte[size];
+
+        boolean identity = true;
+        int maxSeatId = -1;
+        for (int i = 0; i < size; i++) {
+            Seat seat = seats.get(i);
+            if (seat.getSeatId() < 0) {
+                throw new IllegalArgumentException("negative seat id " + seat.getSeatId());
+            }
+            seatIds[i] = seat.getSeatId();
+            rows[i] = seat.getRow();
+            categories[i] = (byte) seat.getSeatCategory().ordinal();
+            seatCountByCategory[categories[i]]++;
+            identity &= seat.getSeatId() == i;
+            maxSeatId = Math.max(maxSeatId, seat.getSeatId());
+        }
+
+        if (identity) {
+            seatIdToIndex = null;
+            sparseSeatIdToIndex = null;
+        } else if (maxSeatId < 4L * size + 64) {
+            seatIdToIndex = new int[maxSeatId + 1];
+            sparseSeatIdToIndex = null;
+            Arrays.fill(seatIdToIndex, -1);
+            for (int i = 0; i < size; i++) {
+                if (seatIdToIndex[seatIds[i]] != -1) {
+                    throw new IllegalArgumentException("seat id " + seatIds[i] + " is used twice");
+                }
+                seatIdToIndex[seatIds[i]] = i;
+            }
+        } else {
+            seatIdToIndex = null;
+            sparseSeatIdToIndex = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                if (sparseSeatIdToIndex.put(seatIds[i], i) != null) {
+                    throw new IllegalArgumentException("seat id " + seatIds[i] + " is used twice");
+                }
+            }
+        }
+
+        indexToPosition = new int[size];
+        for (SeatCategory category : CATEGORIES) {
+            int[] order = preferredOrder(category);
+            for (int position = 0; position < order.length; position++) {
+                indexToPosition[order[position]] = position;
+            }
+            categoryOrder[category.ordinal()] = order;
+        }
+    }
+
+    public int size() {
+        return seatIds.length;
+    }
+
+    //-1 if the seat is not part of this layout
+    public int indexOf(int seatId) {
+        if (sparseSeatIdToIndex != null) {
+            return sparseSeatIdToIndex.getOrDefault(seatId, -1);
+        }
+        if (seatIdToIndex == null) {
+            return seatId >= 0 && seatId < seatIds.length ? seatId : -1;
+        }
+        return seatId >= 0 && seatId < seatIdToIndex.length ? seatIdToIndex[seatId] : -1;
+    }
+
+    public int getSeatId(int seatIndex) {
+        return seatIds[seatIndex];
+    }
+
+    public int getRow(int seatIndex) {
+        return rows[seatIndex];
+    }
+
+    public SeatCategory getSeatCategory(int seatIndex) {
+        return CATEGORIES[categories[seatIndex]];
+    }
+
+    public int getSeatCount(SeatCategory category) {
+        return seatCountByCategory[category.ordinal()];
+    }
+
+    int[] getCategoryOrder(SeatCategory category) {
+        return categoryOrder[category.ordinal()];
+    }
+
+    int getPosition(int seatIndex) {
+        return indexToPosition[seatIndex];
+    }
+
+    //Seat objects are only created when someone asks for them, ex: seats of a booking
+    public Seat toSeat(int seatIndex) {
+        Seat seat = new Seat();
+        seat.setSeatId(seatIds[seatIndex]);
+        seat.setRow(rows[seatIndex]);
+        seat.setSeatCategory(getSeatCategory(seatIndex));
+        return seat;
+    }
+
+    public List<Seat> toSeats() {
+        List<Seat> seats = new ArrayList<>(seatIds.length);
+        for (int i = 0; i < seatIds.length; i++) {
+            seats.add(toSeat(i));
+        }
+        return seats;
+    }
+
+    //middle row of the category first, then alternating one row behind and one row in front
+    private int[] preferredOrder(SeatCategory category) {
+
+        TreeMap<Integer, List<Integer>> rowVsSeatIndexes = new TreeMap<>();
+        for (int i = 0; i < seatIds.length; i++) {
+            if (categories[i] == category.ordinal()) {
+                rowVsSeatIndexes.computeIfAbsent(rows[i], k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        List<List<Integer>> sortedRows = new ArrayList<>(rowVsSeatIndexes.values());
+        int[] order = new int[seatCountByCategory[category.ordinal()]];
+        int position = 0;
+        int middle = (sortedRows.size() - 1) / 2;
+        for (int distance = 0; distance <= sortedRows.size(); distance++) {
+            if (middle + distance < sortedRows.size()) {
+                position = appendRow(sortedRows.get(middle + distance), order, position);
+            }
+            if (distance > 0 && middle - distance >= 0) {
+                position = appendRow(sortedRows.get(middle - distance), order, position);
+            }
+        }
+        return order;
+    }
+
+    private int appendRow(List<Integer> rowSeatIndexes, int[] order, int position) {
+        rowSeatIndexes.sort((a, b) -> Integer.compare(seatIds[a], seatIds[b]));
+        for (int seatIndex : rowSeatIndexes) {
+            order[position++] = seatIndex;
+        }
+        return position;
+    }
+}
@@ -0,0 +1,8 @@
+package BookMyShow;
+
+import BookMyShow.Enums.SeatStatus;
+
+//notified after a seat of a show changed state, called on the thread which changed it
+public interface SeatObserver {
+    public void update(Show show, int seatIndex, SeatStatus from, SeatStatus to);
+}
@@ -0,0 +1,132 @@
+package BookMyShow;
+
+import BookMyShow.Enums.SeatCategory;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Seat price = category base price x show time multiplier x occupancy multiplier.
+//Occupancy is read from the show's O(1) free seat counters and bucketed in 10% bands.
+//The per category prices of a show are cached together with the band they were computed for,
+//so they are recomputed only when the show moves into another band, in between a price is an array lookup.
+//Tables of shows which are over are swept out whenever the cache doubles in size.
+public class SeatPricingEngine {
+
+    private static final int OCCUPANCY_BANDS = 10;
+
+    private final int[] basePriceByCategory = new int[SeatCategory.values().length];
+    //percent, index is the show start hour (0-23)
+    private final int[] timeMultiplierByHour = new int[24];
+    //percent, index is the occupancy band, 0 = less than 10% booked
+    private final int[] occupancyMultiplierByBand = {100, 100, 100, 100, 100, 105, 110, 120, 135, 150};
+
+    private final Map<Integer, PriceTable> showIdVsPriceTable = new ConcurrentHashMap<>();
+    private volatile int sweepThreshold = 1024;
+
+    SeatPricingEngine() {
+        basePriceByCategory[SeatCategory.SILVER.ordinal()] = 200;
+        basePriceByCategory[SeatCategory.GOLD.ordinal()] = 300;
+        basePriceByCategory[SeatCategory.PLATINUM.ordinal()] = 500;
+
+        for (int hour = 0; hour < 24; hour++) {
+            if (hour < 12) {
+                timeMultiplierByHour[hour] = 80;    //morning shows are cheaper
+            } else if (hour < 18) {
+                timeMultiplierByHour[hour] = 100;
+            } else {
+                timeMultiplierByHour[hour] = 120;   //evening prime time
+            }
+        }
+    }
+
+    //prices of one show for one occupancy band, immutable
+    private static class PriceTable {
+
+        final int band;
+        final int[] priceByCategory;
+        final LocalDateTime showEndTime;
+
+        PriceTable(int band, int[] priceByCategory, LocalDateTime showEndTime) {
+            this.band = band;
+            this.priceByCategory = priceByCategory;
+            this.showEndTime = showEndTime;
+        }
+    }
+
+    public int getPrice(Show show, SeatCategory category) {
+        return priceTable(show).priceByCategory[category.ordinal()];
+    }
+
+    //seat ids which are not on the show's screen are rejected with IllegalArgumentException, like Show does
+    public int getPrice(Show show, int seatId) {
+        return getPrice(show, categoryOf(show, seatId));
+    }
+
+    public int getTotalPrice(Show show, List<Integer> seatIds) {
+        PriceTable priceTable = priceTable(show);
+        int total = 0;
+        for (int seatId : seatIds) {
+            total += priceTable.priceByCategory[categoryOf(show, seatId).ordinal()];
+        }
+        return total;
+    }
+
+    //price of every seat of the show, indexed like the SeatLayout
+    public int[] getSeatMapPrices(Show show) {
+        int[] priceByCategory = priceTable(show).priceByCategory;
+        SeatLayout seatLayout = show.getScreen().getSeatLayout();
+        int[] prices = new int[seatLayout.size()];
+        for (int seatIndex = 0; seatIndex < prices.length; seatIndex++) {
+            prices[seatIndex] = priceByCategory[seatLayout.getSeatCategory(seatIndex).ordinal()];
+        }
+        return prices;
+    }
+
+    private PriceTable priceTable(Show show) {
+        int band = occupancyBand(show);
+        PriceTable cached = showIdVsPriceTable.get(show.getShowId());
+        if (cached != null && cached.band == band) {
+            return cached;
+        }
+
+        int timeMultiplier = timeMultiplierByHour[Math.floorMod(show.getShowStartTime(), 24)];
+        int occupancyMultiplier = occupancyMultiplierByBand[band];
+        int[] priceByCategory = new int[basePriceByCategory.length];
+        for (int i = 0; i < priceByCategory.length; i++) {
+            priceByCategory[i] = (int) ((long) basePriceByCategory[i] * timeMultiplier * occupancyMultiplier / 10_000);
+        }
+
+        PriceTable priceTable = new PriceTable(band, priceByCategory, show.getShowEndTime());
+        if (showIdVsPriceTable.put(show.getShowId(), priceTable) == null && showIdVsPriceTable.size() >= sweepThreshold) {
+            evictFinishedShows(LocalDateTime.now());
+        }
+        return priceTable;
+    }
+
+    //drops the price tables of shows which ended before now
+    public void evictFinishedShows(LocalDateTime now) {
+        showIdVsPriceTable.values().removeIf(priceTable ->
+                priceTable.showEndTime != null && priceTable.showEndTime.isBefore(now));
+        sweepThreshold = Math.max(1024, showIdVsPriceTable.size() * 2);
+    }
+
+    private static SeatCategory categoryOf(Show show, int seatId) {
+        SeatLayout seatLayout = show.getScreen().getSeatLayout();
+        int seatIndex = seatLayout.indexOf(seatId);
+        if (seatIndex == -1) {
+            throw new IllegalArgumentException("seat " + seatId + " is not part of show " + show.getShowId());
+        }
+        return seatLayout.getSeatCategory(seatIndex);
+    }
+
+    private static int occupancyBand(Show show) {
+        int capacity = show.getScreen().getSeatLayout().size();
+        if (capacity == 0) {
+            return 0;
+        }
+        int taken = capacity - show.getAvailableSeatCount();
+        return Math.min(OCCUPANCY_BANDS - 1, taken * OCCUPANCY_BANDS / capacity);
+    }
+}
@@ -0,0 +1,218 @@
+package BookMyShow;
+
+import BookMyShow.Enums.SeatStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//Per show seat state, 2 bits per seat packed into an AtomicLongArray (32 seats per word).
+//Every state change is a compare-and-set on the word holding the seat, so two users
+//can never move the same seat out of FREE at the same time and no show-wide lock is needed.
+public class SeatStatusMap {
+
+    private static final int BITS_PER_SEAT = 2;
+    private static final int SEATS_PER_WORD = Long.SIZE / BITS_PER_SEAT;
+    private static final long SEAT_MASK = (1L << BITS_PER_SEAT) - 1;
+
+    private static final SeatStatus[] STATUSES = SeatStatus.values();
+
+    //holdAll retries after losing to a group hold in progress, and how long it waits for it each time
+    private static final int MAX_HOLD_ATTEMPTS = 3;
+    private static final int MAX_FREE_SPINS = 64;
+
+    private final int capacity;
+    private final AtomicLongArray words;
+
+    SeatStatusMap(int capacity) {
+        this.capacity = capacity;
+        this.words = new AtomicLongArray((capacity + SEATS_PER_WORD - 1) / SEATS_PER_WORD);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public SeatStatus getStatus(int seatIndex) {
+        checkIndex(seatIndex);
+        return decode(words.get(wordIndex(seatIndex)), seatIndex);
+    }
+
+    //FREE -> HELD, seat is kept aside while the user is paying
+    public boolean hold(int seatIndex) {
+        return transition(seatIndex, SeatStatus.FREE, SeatStatus.HELD);
+    }
+
+    //HELD -> BOOKED, payment is done
+    public boolean confirm(int seatIndex) {
+        return transition(seatIndex, SeatStatus.HELD, SeatStatus.BOOKED);
+    }
+
+    //HELD -> FREE, payment failed or user went away
+    public boolean release(int seatIndex) {
+        return transition(seatIndex, SeatStatus.HELD, SeatStatus.FREE);
+    }
+
+    //BOOKED -> FREE, booking is cancelled
+    public boolean cancel(int seatIndex) {
+        return transition(seatIndex, SeatStatus.BOOKED, SeatStatus.FREE);
+    }
+
+    public boolean transition(int seatIndex, SeatStatus from, SeatStatus to) {
+        checkIndex(seatIndex);
+        int wordIndex = wordIndex(seatIndex);
+        int shift = shift(seatIndex);
+
+        while (true) {
+            long current = words.get(wordIndex);
+            if (((current >>> shift) & SEAT_MASK) != from.ordinal()) {
+                return false;
+            }
+            long updated = (current & ~(SEAT_MASK << shift)) | ((long) to.ordinal() << shift);
+            if (words.compareAndSet(wordIndex, current, updated)) {
+                return true;
+            }
+            //some other seat in the same word changed, read again and retry
+        }
+    }
+
+    //FREE -> HELD for all the seats or for none of them.
+    //Seats are grouped by the word they live in and the words are CASed in ascending order, all seats
+    //of a word in one CAS. If a word has a seat which is not free, the words already taken are rolled back.
+    //No locks are taken, so there is nothing to deadlock on, and a failed attempt never leaves seats behind.
+    //A conflicting HELD seat can be another group hold which is half way through and about to roll back,
+    //so instead of failing straight away we wait a little for those seats and start again if they free up.
+    //BOOKED seats, or seats which stay held, fail the hold.
+    //Duplicate seat indexes are rejected with IllegalArgumentException.
+    public boolean holdAll(int[] seatIndexes) {
+
+        int[] sorted = seatIndexes.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            checkIndex(sorted[i]);
+            if (i > 0 && sorted[i] == sorted[i - 1]) {
+                throw new IllegalArgumentException("seat " + sorted[i] + " is asked for more than once");
+            }
+        }
+
+        for (int attempt = 0; ; attempt++) {
+            int conflict = tryHoldAll(sorted);
+            if (conflict < 0) {
+                return true;
+            }
+            if (attempt == MAX_HOLD_ATTEMPTS || !awaitFree(sorted, conflict)) {
+                return false;
+            }
+        }
+    }
+
+    //returns -1 when all seats are held, else the position in sorted of the first seat of the conflicting word
+    private int tryHoldAll(int[] sorted) {
+
+        int start = 0;
+        while (start < sorted.length) {
+            int end = wordEnd(sorted, start);
+            long mask = 0;
+            long heldBits = 0;
+            for (int i = start; i < end; i++) {
+                int shift = shift(sorted[i]);
+                mask |= SEAT_MASK << shift;
+                heldBits |= (long) SeatStatus.HELD.ordinal() << shift;
+            }
+
+            if (!casWord(wordIndex(sorted[start]), mask, 0L, heldBits)) {
+                rollback(sorted, start);
+                return start;
+            }
+            start = end;
+        }
+        return -1;
+    }
+
+    //waits a short while for the seats of the conflicting word to become free, false as soon as one is BOOKED
+    private boolean awaitFree(int[] sorted, int start) {
+
+        int end = wordEnd(sorted, start);
+        int wordIndex = wordIndex(sorted[start]);
+        for (int spin = 0; spin < MAX_FREE_SPINS; spin++) {
+            long word = words.get(wordIndex);
+            boolean free = true;
+            for (int i = start; i < end; i++) {
+                SeatStatus status = decode(word, sorted[i]);
+                if (status == SeatStatus.BOOKED) {
+                    return false;
+                }
+                free &= status == SeatStatus.FREE;
+            }
+            if (free) {
+                return true;
+            }
+            //let the other holder finish or roll back, it may be on this very core
+            Thread.yield();
+        }
+        return false;
+    }
+
+    //end position (exclusive) of the seats in sorted which live in the same word as sorted[start]
+    private static int wordEnd(int[] sorted, int start) {
+        int wordIndex = wordIndex(sorted[start]);
+        int end = start;
+        while (end < sorted.length && wordIndex(sorted[end]) == wordIndex) {
+            end++;
+        }
+        return end;
+    }
+
+    //undo holdAll for the seats before position end, these seats are HELD by us so nobody else can touch them
+    private void rollback(int[] sorted, int end) {
+        for (int i = 0; i < end; i++) {
+            transition(sorted[i], SeatStatus.HELD, SeatStatus.FREE);
+        }
+    }
+
+    //replace the bits under mask, only if they are equal to expected
+    private boolean casWord(int wordIndex, long mask, long expected, long updatedBits) {
+        while (true) {
+            long current = words.get(wordIndex);
+            if ((current & mask) != expected) {
+                return false;
+            }
+            if (words.compareAndSet(wordIndex, current, (current & ~mask) | updatedBits)) {
+                return true;
+            }
+        }
+    }
+
+    public List<Integer> getSeatIndexes(SeatStatus status) {
+        List<Integer> seatIndexes = new ArrayList<>();
+        for (int w = 0; w < words.length(); w++) {
+            long word = words.get(w);
+            int base = w * SEATS_PER_WORD;
+            for (int i = 0; i < SEATS_PER_WORD && base + i < capacity; i++) {
+                if (((word >>> (i * BITS_PER_SEAT)) & SEAT_MASK) == status.ordinal()) {
+                    seatIndexes.add(base + i);
+                }
+            }
+        }
+        return seatIndexes;
+    }
+
+    private void checkIndex(int seatIndex) {
+        if (seatIndex < 0 || seatIndex >= capacity) {
+            throw new IndexOutOfBoundsException("seat " + seatIndex + " is not in this show, capacity " + capacity);
+        }
+    }
+
+    private static int wordIndex(int seatIndex) {
+        return seatIndex / SEATS_PER_WORD;
+    }
+
+    private static int shift(int seatIndex) {
+        return (seatIndex % SEATS_PER_WORD) * BITS_PER_SEAT;
+    }
+
+    private static SeatStatus decode(long word, int seatIndex) {
+        return STATUSES[(int) ((word >>> shift(seatIndex)) & SEAT_MASK)];
+    }
+}
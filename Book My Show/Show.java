@@ -1,7 +1,14 @@
 package BookMyShow;
 
+import BookMyShow.Enums.SeatCategory;
+import BookMyShow.Enums.SeatStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 public class Show {
 
@@ -9,7 +16,14 @@ public class Show {
     Movie movie;
     Screen screen;
     int showStartTime;
-    List<Integer> bookedSeatIds = new ArrayList<>();
+    LocalDate showDate;
+    //compact per show seat state, seat details come from the screen's shared SeatLayout
+    SeatStatusMap seatStatusMap = new SeatStatusMap(0);
+    //created on the first best seat search, most shows never need it
+    volatile SeatFinder seatFinder;
+    List<SeatObserver> seatObservers = new CopyOnWriteArrayList<>();
+    //free seats per SeatCategory ordinal, kept in step with seatStatusMap
+    AtomicIntegerArray freeSeatsByCategory = new AtomicIntegerArray(SeatCategory.values().length);
 
     public int getShowId() {
         return showId;
@@ -33,6 +47,12 @@ public class Show {
 
     public void setScreen(Screen screen) {
         this.screen = screen;
+        this.seatStatusMap = new SeatStatusMap(screen.getSeatLayout().size());
+        this.seatFinder = null;
+        this.freeSeatsByCategory = new AtomicIntegerArray(SeatCategory.values().length);
+        for (SeatCategory category : SeatCategory.values()) {
+            freeSeatsByCategory.set(category.ordinal(), screen.getSeatLayout().getSeatCount(category));
+        }
     }
 
     public int getShowStartTime() {
@@ -43,12 +63,155 @@ public class Show {
         this.showStartTime = showStartTime;
     }
 
+    public LocalDate getShowDate() {
+        return showDate;
+    }
+
+    public void setShowDate(LocalDate showDate) {
+        this.showDate = showDate;
+    }
+
+    //start hour + movie duration, null when the show has no date yet
+    public LocalDateTime getShowEndTime() {
+        if (showDate == null) {
+            return null;
+        }
+        int duration = movie == null ? 0 : movie.getMovieDuration();
+        return showDate.atStartOfDay().plusHours(showStartTime).plusMinutes(duration);
+    }
+
+    public int getAvailableSeatCount(SeatCategory category) {
+        return freeSeatsByCategory.get(category.ordinal());
+    }
+
+    public int getAvailableSeatCount() {
+        int available = 0;
+        for (int i = 0; i < freeSeatsByCategory.length(); i++) {
+            available += freeSeatsByCategory.get(i);
+        }
+        return available;
+    }
+
+    //snapshot of the booked seats, seat state itself lives in seatStatusMap
     public List<Integer> getBookedSeatIds() {
+        SeatLayout seatLayout = screen.getSeatLayout();
+        List<Integer> bookedSeatIds = new ArrayList<>();
+        for (int seatIndex : seatStatusMap.getSeatIndexes(SeatStatus.BOOKED)) {
+            bookedSeatIds.add(seatLayout.getSeatId(seatIndex));
+        }
         return bookedSeatIds;
     }
 
-    public void setBookedSeatIds(List<Integer> bookedSeatIds) {
-        this.bookedSeatIds = bookedSeatIds;
+    public SeatStatusMap getSeatStatusMap() {
+        return seatStatusMap;
+    }
+
+    public SeatStatus getSeatStatus(int seatId) {
+        return seatStatusMap.getStatus(indexOf(seatId));
+    }
+
+    //best n adjacent free seats of the category, empty if there is no such run
+    public List<Integer> findBestSeats(SeatCategory category, int n) {
+        return getSeatFinder().findBestSeats(category, n);
+    }
+
+    public void addSeatObserver(SeatObserver observer) {
+        seatObservers.add(observer);
+    }
+
+    public void removeSeatObserver(SeatObserver observer) {
+        seatObservers.remove(observer);
     }
-}
 
+    public boolean holdSeat(int seatId) {
+        return changeSeat(indexOf(seatId), SeatStatus.FREE, SeatStatus.HELD);
+    }
+
+    //all the seats or none of them, a seat id given twice or not on the screen is rejected with IllegalArgumentException
+    public boolean holdSeats(List<Integer> seatIds) {
+        int[] seatIndexes = new int[seatIds.size()];
+        for (int i = 0; i < seatIndexes.length; i++) {
+            seatIndexes[i] = indexOf(seatIds.get(i));
+        }
+        if (!seatStatusMap.holdAll(seatIndexes)) {
+            return false;
+        }
+        for (int seatIndex : seatIndexes) {
+            seatChanged(seatIndex, SeatStatus.FREE, SeatStatus.HELD);
+        }
+        return true;
+    }
+
+    public boolean confirmSeat(int seatId) {
+        return changeSeat(indexOf(seatId), SeatStatus.HELD, SeatStatus.BOOKED);
+    }
+
+    public boolean releaseSeat(int seatId) {
+        return changeSeat(indexOf(seatId), SeatStatus.HELD, SeatStatus.FREE);
+    }
+
+    public boolean cancelSeat(int seatId) {
+        return changeSeat(indexOf(seatId), SeatStatus.BOOKED, SeatStatus.FREE);
+    }
+
+    //used while recovering, marks the seat booked straight away. false for an index the layout does not have
+    boolean restoreBookedSeat(int seatIndex) {
+        return seatIndex >= 0 && seatIndex < seatStatusMap.getCapacity()
+                && changeSeat(seatIndex, SeatStatus.FREE, SeatStatus.HELD)
+                && changeSeat(seatIndex, SeatStatus.HELD, SeatStatus.BOOKED);
+    }
+
+    private boolean changeSeat(int seatIndex, SeatStatus from, SeatStatus to) {
+        if (!seatStatusMap.transition(seatIndex, from, to)) {
+            return false;
+        }
+        seatChanged(seatIndex, from, to);
+        return true;
+    }
+
+    //seat ids which are not on the screen are rejected, -1 must never reach the seat status map
+    private int indexOf(int seatId) {
+        int seatIndex = screen.getSeatLayout().indexOf(seatId);
+        if (seatIndex == -1) {
+            throw new IllegalArgumentException("seat " + seatId + " is not part of show " + showId);
+        }
+        return seatIndex;
+    }
+
+    //The finder is published before it is filled, and filled while holding its lock.
+    //A seat change either sees the finder and refreshes it, or happened before the publish
+    //and is then read by build, so no change is lost.
+    private SeatFinder getSeatFinder() {
+        SeatFinder finder = seatFinder;
+        if (finder != null) {
+            return finder;
+        }
+        synchronized (this) {
+            if (seatFinder == null) {
+                finder = new SeatFinder(screen.getSeatLayout());
+                synchronized (finder) {
+                    seatFinder = finder;
+                    finder.build(seatStatusMap);
+                }
+            }
+            return seatFinder;
+        }
+    }
+
+    //keep the counters and the seat finder in sync and let the observers know
+    private void seatChanged(int seatIndex, SeatStatus from, SeatStatus to) {
+        int category = screen.getSeatLayout().getSeatCategory(seatIndex).ordinal();
+        if (from == SeatStatus.FREE) {
+            freeSeatsByCategory.decrementAndGet(category);
+        } else if (to == SeatStatus.FREE) {
+            freeSeatsByCategory.incrementAndGet(category);
+        }
+        SeatFinder finder = seatFinder;
+        if (finder != null && (from == SeatStatus.FREE || to == SeatStatus.FREE)) {
+            finder.refresh(seatIndex, seatStatusMap);
+        }
+        for (SeatObserver observer : seatObservers) {
+            observer.update(this, seatIndex, from, to);
+        }
+    }
+}
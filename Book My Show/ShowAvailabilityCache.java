@@ -0,0 +1,189 @@
+package BookMyShow;
+
+import BookMyShow.Enums.City;
+import BookMyShow.Enums.SeatCategory;
+import BookMyShow.Enums.SeatStatus;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//Free seats per category of a movie in a city on a date, summed over all its shows.
+//Summaries are kept in a bounded LRU map and dropped as soon as a seat of one of their shows
+//moves in or out of FREE (write through invalidation), so a read is either a cache hit or one pass
+//over the shows using their O(1) per category counters.
+//Only cached summaries are tracked per show, and the versions that stop a summary computed during a
+//change from being cached live in a fixed array of stripes, so nothing here grows past the LRU bound.
+public class ShowAvailabilityCache implements SeatObserver {
+
+    private static final int VERSION_STRIPES = 1024;
+
+    private final TheatreController theatreController;
+    private final Map<AvailabilityKey, CachedSummary> cache;
+    //showId -> cached summary it is part of, to know what to invalidate. changed with the cache lock held
+    private final Map<Integer, AvailabilityKey> showIdVsKey = new ConcurrentHashMap<>();
+    //bumped on every seat change of a show and every catalog change of a key, a summary computed meanwhile
+    //is not cached. shows and keys sharing a stripe only cost a skipped put
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    ShowAvailabilityCache(TheatreController theatreController, int maxEntries) {
+        this.theatreController = theatreController;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<AvailabilityKey, CachedSummary> eldest) {
+                if (size() <= maxEntries) {
+                    return false;
+                }
+                untrack(eldest.getKey(), eldest.getValue().showIds);
+                return true;
+            }
+        };
+    }
+
+    public Map<SeatCategory, Integer> getAvailability(City city, Movie movie, LocalDate date) {
+
+        AvailabilityKey key = new AvailabilityKey(city, movie.getMovieId(), date);
+        synchronized (cache) {
+            CachedSummary cached = cache.get(key);
+            if (cached != null) {
+                return cached.summary;
+            }
+        }
+
+        int keyStripe = stripe(key.hashCode());
+        long keyVersion = versions.get(keyStripe);
+        List<Integer> showIds = new ArrayList<>();
+        List<Long> showVersions = new ArrayList<>();
+        int[] available = new int[SeatCategory.values().length];
+        for (Show show : theatreController.getShows(movie, city)) {
+            if (!Objects.equals(show.getShowDate(), date)) {
+                continue;
+            }
+            //version before reading the counters, a change after this point stops the summary from being cached
+            showIds.add(show.getShowId());
+            showVersions.add(versions.get(stripe(show.getShowId())));
+            for (SeatCategory category : SeatCategory.values()) {
+                available[category.ordinal()] += show.getAvailableSeatCount(category);
+            }
+        }
+
+        Map<SeatCategory, Integer> summary = new EnumMap<>(SeatCategory.class);
+        for (SeatCategory category : SeatCategory.values()) {
+            summary.put(category, available[category.ordinal()]);
+        }
+        summary = Collections.unmodifiableMap(summary);
+
+        synchronized (cache) {
+            //track first and check the versions after, update() bumps before it looks a show up,
+            //so a change either shows up in the versions here or finds the summary and drops it
+            for (int showId : showIds) {
+                showIdVsKey.put(showId, key);
+            }
+            if (unchanged(keyStripe, keyVersion, showIds, showVersions)) {
+                cache.put(key, new CachedSummary(summary, showIds));
+            } else if (!cache.containsKey(key)) {
+                untrack(key, showIds);
+            }
+        }
+        return summary;
+    }
+
+    @Override
+    public void update(Show show, int seatIndex, SeatStatus from, SeatStatus to) {
+        if (from != SeatStatus.FREE && to != SeatStatus.FREE) {
+            return;
+        }
+        versions.incrementAndGet(stripe(show.getShowId()));
+        AvailabilityKey key = showIdVsKey.get(show.getShowId());
+        if (key != null) {
+            drop(key);
+        }
+    }
+
+    //new show or other catalog change
+    public void invalidate(City city, Movie movie, LocalDate date) {
+        AvailabilityKey key = new AvailabilityKey(city, movie.getMovieId(), date);
+        versions.incrementAndGet(stripe(key.hashCode()));
+        drop(key);
+    }
+
+    private void drop(AvailabilityKey key) {
+        synchronized (cache) {
+            CachedSummary cached = cache.remove(key);
+            if (cached != null) {
+                untrack(key, cached.showIds);
+            }
+        }
+    }
+
+    private boolean unchanged(int keyStripe, long keyVersion, List<Integer> showIds, List<Long> showVersions) {
+        if (versions.get(keyStripe) != keyVersion) {
+            return false;
+        }
+        for (int i = 0; i < showIds.size(); i++) {
+            if (versions.get(stripe(showIds.get(i))) != showVersions.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //called with the cache lock held
+    private void untrack(AvailabilityKey key, List<Integer> showIds) {
+        for (int showId : showIds) {
+            showIdVsKey.remove(showId, key);
+        }
+    }
+
+    private static int stripe(int hash) {
+        return (hash ^ (hash >>> 16)) & (VERSION_STRIPES - 1);
+    }
+
+    private static class CachedSummary {
+
+        final Map<SeatCategory, Integer> summary;
+        final List<Integer> showIds;
+
+        CachedSummary(Map<SeatCategory, Integer> summary, List<Integer> showIds) {
+            this.summary = summary;
+            this.showIds = showIds;
+        }
+    }
+
+    private static class AvailabilityKey {
+
+        final City city;
+        final int movieId;
+        final LocalDate date;
+
+        AvailabilityKey(City city, int movieId, LocalDate date) {
+            this.city = city;
+            this.movieId = movieId;
+            this.date = date;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof AvailabilityKey)) {
+                return false;
+            }
+            AvailabilityKey other = (AvailabilityKey) o;
+            return movieId == other.movieId && city == other.city && Objects.equals(date, other.date);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(city, movieId, date);
+        }
+    }
+}
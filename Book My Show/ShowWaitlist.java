@@ -0,0 +1,227 @@
+package BookMyShow;
+
+import BookMyShow.Enums.SeatCategory;
+import BookMyShow.Enums.SeatStatus;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+//Per show waitlist. Users who could not get seats wait in a bounded lock free FIFO queue per seat category, and
+//as soon as a seat of the show becomes free again (hold expired or released, booking cancelled) the first waiter
+//of each category gets a hold on the best seats of that category. A waiter who does not fit yet stays at the
+//head of its queue, so later users never jump ahead of them, and other categories are not blocked by them.
+//Promotion runs on one promoter thread, never on the thread which freed the seat (that can be the hold timer
+//thread, or a booking thread inside a seat change), a burst of freed seats of a show is one promotion pass.
+//A promoted hold is handed to the promotion listener, if it does not confirm it the hold expires like any other
+//hold and its seats go to the next waiter.
+//Queues are created on the first join of their category, a show is dropped once nobody waits or it is over.
+public class ShowWaitlist implements SeatObserver {
+
+    private final SeatHoldManager seatHoldManager;
+    private final NotificationDispatcher notificationDispatcher;
+    //per category of a show
+    private final int maxWaitersPerShow;
+    //joins and removals of a show go through compute, so a show is never dropped while a user is joining it
+    private final Map<Integer, ShowWaiters> showIdVsWaiters = new ConcurrentHashMap<>();
+    //finished shows are swept when the map doubles
+    private volatile int sweepThreshold = 1024;
+    //the only consumer of the waiter queues
+    private final ExecutorService promoter;
+    //promoted users get their hold here, ex: to start the payment
+    private final Consumer<SeatHold> promotionListener;
+
+    //release to rebook latency
+    private final LongAdder promotions = new LongAdder();
+    private final LongAdder promotionNanos = new LongAdder();
+    private final AtomicLong maxPromotionNanos = new AtomicLong();
+
+    ShowWaitlist(SeatHoldManager seatHoldManager, NotificationDispatcher notificationDispatcher, int maxWaitersPerShow,
+                 Consumer<SeatHold> promotionListener) {
+        this.seatHoldManager = seatHoldManager;
+        this.notificationDispatcher = notificationDispatcher;
+        this.maxWaitersPerShow = maxWaitersPerShow;
+        this.promotionListener = Objects.requireNonNull(promotionListener);
+        this.promoter = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "waitlist-promoter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static class ShowWaiters {
+
+        final Show show;
+        //by category ordinal, null until somebody waits for the category
+        final AtomicReferenceArray<BoundedMpmcQueue<Waiter>> categoryWaiters =
+                new AtomicReferenceArray<>(SeatCategory.values().length);
+        //exact waiter count per category, the queue itself is rounded up to a power of 2
+        final AtomicIntegerArray waiterCounts = new AtomicIntegerArray(SeatCategory.values().length);
+        //users waiting in any category of the show
+        final Set<Integer> userIds = ConcurrentHashMap.newKeySet();
+        //a promotion pass is queued and has not started yet
+        final AtomicBoolean promotionScheduled = new AtomicBoolean();
+        //when the first seat freed since the last pass was freed
+        volatile long freedAtNanos;
+
+        ShowWaiters(Show show) {
+            this.show = show;
+        }
+
+        //joins of the same show are serialised by compute, the promoter only ever lowers the counts
+        boolean add(Waiter waiter, int maxWaiters) {
+            int category = waiter.category.ordinal();
+            if (waiterCounts.get(category) >= maxWaiters || !userIds.add(waiter.userId)) {
+                return false;
+            }
+            BoundedMpmcQueue<Waiter> waiters = categoryWaiters.get(category);
+            if (waiters == null) {
+                waiters = new BoundedMpmcQueue<>(maxWaiters);
+                categoryWaiters.set(category, waiters);
+            }
+            waiterCounts.incrementAndGet(category);
+            waiters.offer(waiter);
+            return true;
+        }
+    }
+
+    static class Waiter {
+
+        final int userId;
+        final SeatCategory category;
+        final int seatCount;
+
+        Waiter(int userId, SeatCategory category, int seatCount) {
+            this.userId = userId;
+            this.category = category;
+            this.seatCount = seatCount;
+        }
+    }
+
+    //false if the waitlist of the category is full, the user already waits for this show or the show is over
+    public boolean join(Show show, int userId, SeatCategory category, int seatCount) {
+        if (isFinished(show, LocalDateTime.now())) {
+            return false;
+        }
+        Waiter waiter = new Waiter(userId, category, seatCount);
+        boolean[] joined = new boolean[1];
+        ShowWaiters showWaiters = showIdVsWaiters.compute(show.getShowId(), (showId, existing) -> {
+            ShowWaiters waiters = existing == null ? new ShowWaiters(show) : existing;
+            joined[0] = waiters.add(waiter, maxWaitersPerShow);
+            return waiters.userIds.isEmpty() ? null : waiters;
+        });
+        if (!joined[0]) {
+            return false;
+        }
+        if (showIdVsWaiters.size() >= sweepThreshold) {
+            evictFinishedShows(LocalDateTime.now());
+        }
+        //seats may have been freed while we were joining
+        schedulePromotion(show, showWaiters, System.nanoTime());
+        return true;
+    }
+
+    public int getWaiterCount(Show show) {
+        ShowWaiters showWaiters = showIdVsWaiters.get(show.getShowId());
+        return showWaiters == null ? 0 : showWaiters.userIds.size();
+    }
+
+    //drop the waitlists of shows which are over, their waiters can not get seats anymore
+    public void evictFinishedShows(LocalDateTime now) {
+        showIdVsWaiters.values().removeIf(showWaiters -> isFinished(showWaiters.show, now));
+        sweepThreshold = Math.max(1024, showIdVsWaiters.size() * 2);
+    }
+
+    public long getPromotionCount() {
+        return promotions.sum();
+    }
+
+    public double getAveragePromotionMicros() {
+        long count = promotions.sum();
+        return count == 0 ? 0 : promotionNanos.sum() / 1e3 / count;
+    }
+
+    public double getMaxPromotionMicros() {
+        return maxPromotionNanos.get() / 1e3;
+    }
+
+    public void shutdown() {
+        promoter.shutdown();
+    }
+
+    @Override
+    public void update(Show show, int seatIndex, SeatStatus from, SeatStatus to) {
+        if (to != SeatStatus.FREE) {
+            return;
+        }
+        ShowWaiters showWaiters = showIdVsWaiters.get(show.getShowId());
+        if (showWaiters != null) {
+            schedulePromotion(show, showWaiters, System.nanoTime());
+        }
+    }
+
+    private void schedulePromotion(Show show, ShowWaiters showWaiters, long freedAtNanos) {
+        if (!showWaiters.promotionScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        showWaiters.freedAtNanos = freedAtNanos;
+        try {
+            promoter.execute(() -> promote(show, showWaiters));
+        } catch (RejectedExecutionException e) {
+            //shut down, nobody gets promoted anymore
+            showWaiters.promotionScheduled.set(false);
+        }
+    }
+
+    //promoter thread only
+    private void promote(Show show, ShowWaiters showWaiters) {
+        //seats freed from here on schedule the next pass
+        long freedAtNanos = showWaiters.freedAtNanos;
+        showWaiters.promotionScheduled.set(false);
+
+        boolean finished = isFinished(show, LocalDateTime.now());
+        for (int category = 0; category < showWaiters.categoryWaiters.length() && !finished; category++) {
+            BoundedMpmcQueue<Waiter> waiters = showWaiters.categoryWaiters.get(category);
+            Waiter waiter;
+            while (waiters != null && (waiter = waiters.peek()) != null) {
+                SeatHold hold = seatHoldManager.holdBestSeats(show, waiter.category, waiter.seatCount);
+                if (hold == null) {
+                    //not enough seats together yet, the waiter keeps the head of the queue
+                    break;
+                }
+                waiters.poll();
+                showWaiters.waiterCounts.decrementAndGet(category);
+                showWaiters.userIds.remove(waiter.userId);
+
+                long latency = System.nanoTime() - freedAtNanos;
+                promotions.increment();
+                promotionNanos.add(latency);
+                maxPromotionNanos.accumulateAndGet(latency, Math::max);
+
+                promotionListener.accept(hold);
+                notificationDispatcher.notify("user " + waiter.userId + ": " + waiter.seatCount + " " + waiter.category
+                        + " seats are held for you for show " + show.getShowId() + ", complete the payment to book them");
+            }
+        }
+
+        //nobody left to promote, a user joining now creates a new entry
+        showIdVsWaiters.computeIfPresent(show.getShowId(), (showId, existing) ->
+                existing == showWaiters && (finished || existing.userIds.isEmpty()) ? null : existing);
+    }
+
+    private static boolean isFinished(Show show, LocalDateTime now) {
+        LocalDateTime showEndTime = show.getShowEndTime();
+        return showEndTime != null && showEndTime.isBefore(now);
+    }
+}
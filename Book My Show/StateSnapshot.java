@@ -0,0 +1,520 @@
+package BookMyShow;
+
+import BookMyShow.Enums.City;
+import BookMyShow.Enums.SeatCategory;
+import BookMyShow.Enums.SeatStatus;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Whole catalog plus booked seats in one compact binary file, for warm restarts without rebuilding from the sources.
+//
+//Layout (version 3), every number is an unsigned LEB128 varint, signed ones (ids, days, start hour) zigzag encoded first:
+//  magic, version, base epoch day
+//  movies:   count, how many of them are in the movie catalog (those come first), then id, name, duration.
+//            the others are only referenced by shows
+//  cities:   per City (ordinal order) count of movies, then movie indexes
+//  layouts:  count, then seat count and per seat: id, row, category ordinal. Shared layouts are written once
+//  screens:  count, then id, layout index + 1 (0 = none)
+//  theatres: count, then id, address, city ordinal + 1 (0 = none), screen count + screen indexes,
+//            show count + per show: id, movie index, screen index + 1 (0 = none), start hour,
+//            date (days after base + 1, 0 = none),
+//            booked seats
+//  strings are byte length + 1 (0 = null) followed by UTF-8 bytes
+//  booked seats: 0 = none, 1 = count + gaps between booked seat indexes, 2 = bitmap of ceil(seats / 8) bytes,
+//  whichever is smaller. Held seats are not saved, holds do not survive a restart.
+//
+//Reading maps the file and decodes straight from the mapped buffer, then restores seats and fills
+//the controllers with their bulk methods, once.
+public class StateSnapshot {
+
+    private static final int MAGIC = 0x424D5353;
+    private static final int VERSION = 3;
+
+    private static final int NO_SEATS = 0;
+    private static final int SEAT_GAPS = 1;
+    private static final int SEAT_BITMAP = 2;
+
+    private static final City[] CITIES = City.values();
+    private static final SeatCategory[] CATEGORIES = SeatCategory.values();
+
+    public static void write(Path file, MovieController movieController, TheatreController theatreController) throws IOException {
+
+        List<Theatre> theatres = theatreController.getAllTheatres();
+        Map<Movie, Integer> movieIndexes = new IdentityHashMap<>();
+        Map<Screen, Integer> screenIndexes = new IdentityHashMap<>();
+        Map<SeatLayout, Integer> layoutIndexes = new IdentityHashMap<>();
+        List<Movie> movies = new ArrayList<>();
+        List<Screen> screens = new ArrayList<>();
+        List<SeatLayout> layouts = new ArrayList<>();
+
+        //the whole movie catalog first, movies running in no city yet included
+        for (Movie movie : movieController.getAllMovies()) {
+            indexOf(movie, movieIndexes, movies);
+        }
+        int catalogMovies = movies.size();
+        Map<City, List<Movie>> cityVsMovies = new EnumMap<>(City.class);
+        for (City city : CITIES) {
+            List<Movie> cityMovies = movieController.getMoviesByCity(city);
+            cityVsMovies.put(city, cityMovies == null ? List.of() : new ArrayList<>(cityMovies));
+            for (Movie movie : cityVsMovies.get(city)) {
+                indexOf(movie, movieIndexes, movies);
+            }
+        }
+        long baseDay = Long.MAX_VALUE;
+        for (Theatre theatre : theatres) {
+            for (Screen screen : theatre.getScreen()) {
+                indexOf(screen, screenIndexes, screens);
+            }
+            for (Show show : theatre.getShows()) {
+                indexOf(show.getMovie(), movieIndexes, movies);
+                if (show.getScreen() != null) {
+                    indexOf(show.getScreen(), screenIndexes, screens);
+                }
+                if (show.getShowDate() != null) {
+                    baseDay = Math.min(baseDay, show.getShowDate().toEpochDay());
+                }
+            }
+        }
+        for (Screen screen : screens) {
+            if (screen.getSeatLayout() != null) {
+                indexOf(screen.getSeatLayout(), layoutIndexes, layouts);
+            }
+        }
+        if (baseDay == Long.MAX_VALUE) {
+            baseDay = 0;
+        }
+
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             Encoder out = new Encoder(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16))) {
+            out.writeVarint(MAGIC);
+            out.writeVarint(VERSION);
+            out.writeSigned(baseDay);
+
+            out.writeVarint(movies.size());
+            out.writeVarint(catalogMovies);
+            for (Movie movie : movies) {
+                out.writeSigned(movie.getMovieId());
+                out.writeString(movie.getMovieName());
+                out.writeVarint(movie.getMovieDuration());
+            }
+            for (City city : CITIES) {
+                List<Movie> cityMovies = cityVsMovies.get(city);
+                out.writeVarint(cityMovies.size());
+                for (Movie movie : cityMovies) {
+                    out.writeVarint(movieIndexes.get(movie));
+                }
+            }
+
+            out.writeVarint(layouts.size());
+            for (SeatLayout layout : layouts) {
+                out.writeVarint(layout.size());
+                for (int i = 0; i < layout.size(); i++) {
+                    out.writeSigned(layout.getSeatId(i));
+                    out.writeVarint(layout.getRow(i));
+                    out.writeVarint(layout.getSeatCategory(i).ordinal());
+                }
+            }
+
+            out.writeVarint(screens.size());
+            for (Screen screen : screens) {
+                out.writeSigned(screen.getScreenId());
+                out.writeVarint(screen.getSeatLayout() == null ? 0 : layoutIndexes.get(screen.getSeatLayout()) + 1);
+            }
+
+            out.writeVarint(theatres.size());
+            for (Theatre theatre : theatres) {
+                out.writeSigned(theatre.getTheatreId());
+                out.writeString(theatre.getAddress());
+                out.writeVarint(theatre.getCity() == null ? 0 : theatre.getCity().ordinal() + 1);
+                out.writeVarint(theatre.getScreen().size());
+                for (Screen screen : theatre.getScreen()) {
+                    out.writeVarint(screenIndexes.get(screen));
+                }
+                out.writeVarint(theatre.getShows().size());
+                for (Show show : theatre.getShows()) {
+                    out.writeSigned(show.getShowId());
+                    out.writeVarint(movieIndexes.get(show.getMovie()));
+                    out.writeVarint(show.getScreen() == null ? 0 : screenIndexes.get(show.getScreen()) + 1);
+                    out.writeSigned(show.getShowStartTime());
+                    out.writeVarint(show.getShowDate() == null ? 0 : show.getShowDate().toEpochDay() - baseDay + 1);
+                    writeBookedSeats(out, show.getSeatStatusMap());
+                }
+            }
+            //on disk before it replaces the old snapshot, a crash must leave one of the two complete
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    //fills empty controllers from the file, returns the number of shows loaded
+    public static int read(Path file, MovieController movieController, TheatreController theatreController) throws IOException {
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            return read(new Decoder(buffer), movieController, theatreController);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("corrupt or truncated snapshot: " + file, e);
+        }
+    }
+
+    private static int read(Decoder in, MovieController movieController, TheatreController theatreController) throws IOException {
+
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not a BookMyShow snapshot");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("unsupported snapshot version " + version);
+        }
+        long baseDay = in.readSigned();
+
+        Movie[] movies = new Movie[in.readInt()];
+        int catalogMovies = in.readInt();
+        for (int i = 0; i < movies.length; i++) {
+            Movie movie = new Movie();
+            movie.setMovieId((int) in.readSigned());
+            movie.setMovieName(in.readString());
+            movie.setMovieDuration(in.readInt());
+            movies[i] = movie;
+        }
+        Map<City, List<Movie>> cityVsMovies = new EnumMap<>(City.class);
+        for (City city : CITIES) {
+            int count = in.readInt();
+            List<Movie> cityMovies = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                cityMovies.add(movies[in.readInt()]);
+            }
+            if (!cityMovies.isEmpty()) {
+                cityVsMovies.put(city, cityMovies);
+            }
+        }
+        Map<Movie, Boolean> inSomeCity = new IdentityHashMap<>();
+        for (List<Movie> cityMovies : cityVsMovies.values()) {
+            for (Movie movie : cityMovies) {
+                inSomeCity.put(movie, true);
+            }
+        }
+        List<Movie> unscheduledMovies = new ArrayList<>();
+        for (int i = 0; i < catalogMovies; i++) {
+            if (!inSomeCity.containsKey(movies[i])) {
+                unscheduledMovies.add(movies[i]);
+            }
+        }
+
+        SeatLayout[] layouts = new SeatLayout[in.readInt()];
+        for (int i = 0; i < layouts.length; i++) {
+            int seatCount = in.readInt();
+            List<Seat> seats = new ArrayList<>(seatCount);
+            for (int s = 0; s < seatCount; s++) {
+                Seat seat = new Seat();
+                seat.setSeatId((int) in.readSigned());
+                seat.setRow(in.readInt());
+                seat.setSeatCategory(CATEGORIES[in.readInt()]);
+                seats.add(seat);
+            }
+            layouts[i] = new SeatLayout(seats);
+        }
+
+        Screen[] screens = new Screen[in.readInt()];
+        for (int i = 0; i < screens.length; i++) {
+            Screen screen = new Screen();
+            screen.setScreenId((int) in.readSigned());
+            int layout = in.readInt();
+            if (layout > 0) {
+                screen.setSeatLayout(layouts[layout - 1]);
+            }
+            screens[i] = screen;
+        }
+
+        int theatreCount = in.readInt();
+        int showCount = 0;
+        List<Theatre> theatres = new ArrayList<>(theatreCount);
+        for (int t = 0; t < theatreCount; t++) {
+            Theatre theatre = new Theatre();
+            theatre.setTheatreId((int) in.readSigned());
+            theatre.setAddress(in.readString());
+            int city = in.readInt();
+            theatre.setCity(city == 0 ? null : CITIES[city - 1]);
+            int screenCount = in.readInt();
+            List<Screen> theatreScreens = new ArrayList<>(screenCount);
+            for (int i = 0; i < screenCount; i++) {
+                theatreScreens.add(screens[in.readInt()]);
+            }
+            theatre.setScreen(theatreScreens);
+
+            int theatreShows = in.readInt();
+            List<Show> shows = new ArrayList<>(theatreShows);
+            for (int i = 0; i < theatreShows; i++) {
+                Show show = new Show();
+                show.setShowId((int) in.readSigned());
+                show.setMovie(movies[in.readInt()]);
+                int screen = in.readInt();
+                if (screen > 0) {
+                    show.setScreen(screens[screen - 1]);
+                }
+                show.setShowStartTime((int) in.readSigned());
+                long day = in.readVarint();
+                show.setShowDate(day == 0 ? null : LocalDate.ofEpochDay(baseDay + day - 1));
+                //restored before the show is indexed, so seat observers do not see these as new bookings
+                readBookedSeats(in, show);
+                shows.add(show);
+            }
+            theatre.setShows(shows);
+            theatres.add(theatre);
+            showCount += theatreShows;
+        }
+
+        movieController.addMovies(cityVsMovies);
+        movieController.addUnscheduledMovies(unscheduledMovies);
+        theatreController.addTheatres(theatres);
+        return showCount;
+    }
+
+    //usage: StateSnapshot [shows], builds the catalog from a generated schedule, books 30% of the seats,
+    //then compares a snapshot load with the rebuild
+    public static void main(String args[]) throws Exception {
+
+        int showCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path schedule = Files.createTempFile("schedule", ".csv");
+        Path snapshot = Files.createTempFile("bookmyshow", ".snapshot");
+        try {
+            CatalogLoader.writeSampleSchedule(schedule, showCount);
+            Map<String, SeatLayout> seatPlans = Map.of("STANDARD", new SeatLayout(BookMyShow.createSeats()));
+
+            long start = System.nanoTime();
+            MovieController movieController = new MovieController();
+            TheatreController theatreController = new TheatreController();
+            new CatalogLoader(movieController, theatreController, seatPlans).load(schedule);
+            long rebuildMillis = (System.nanoTime() - start) / 1_000_000;
+
+            int booked = 0;
+            for (Theatre theatre : theatreController.getAllTheatres()) {
+                for (Show show : theatre.getShows()) {
+                    for (int seat = show.getShowId() % 3; seat < show.getSeatStatusMap().getCapacity(); seat += 3) {
+                        booked += show.restoreBookedSeat(seat) ? 1 : 0;
+                    }
+                }
+            }
+
+            start = System.nanoTime();
+            write(snapshot, movieController, theatreController);
+            long writeMillis = (System.nanoTime() - start) / 1_000_000;
+
+            movieController = null;
+            theatreController = null;
+            System.gc();
+
+            start = System.nanoTime();
+            int loaded = read(snapshot, new MovieController(), new TheatreController());
+            long readMillis = (System.nanoTime() - start) / 1_000_000;
+
+            System.out.printf("%d shows, %d booked seats, snapshot %d KB%n", loaded, booked, Files.size(snapshot) / 1024);
+            System.out.printf("rebuild from csv %d ms, snapshot write %d ms, snapshot load %d ms%n",
+                    rebuildMillis, writeMillis, readMillis);
+        } finally {
+            Files.deleteIfExists(schedule);
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
+    private static <T> int indexOf(T value, Map<T, Integer> indexes, List<T> values) {
+        Integer index = indexes.get(value);
+        if (index == null) {
+            index = values.size();
+            indexes.put(value, index);
+            values.add(value);
+        }
+        return index;
+    }
+
+    private static void writeBookedSeats(Encoder out, SeatStatusMap seatStatusMap) throws IOException {
+
+        int capacity = seatStatusMap.getCapacity();
+        int booked = 0;
+        int gapBytes = 0;
+        int previous = -1;
+        for (int i = 0; i < capacity; i++) {
+            if (seatStatusMap.getStatus(i) == SeatStatus.BOOKED) {
+                booked++;
+                gapBytes += Encoder.varintSize(i - previous - 1);
+                previous = i;
+            }
+        }
+        if (booked == 0) {
+            out.writeVarint(NO_SEATS);
+            return;
+        }
+
+        int bitmapBytes = (capacity + 7) / 8;
+        if (Encoder.varintSize(booked) + gapBytes < bitmapBytes) {
+            out.writeVarint(SEAT_GAPS);
+            out.writeVarint(booked);
+            previous = -1;
+            for (int i = 0; i < capacity; i++) {
+                if (seatStatusMap.getStatus(i) == SeatStatus.BOOKED) {
+                    out.writeVarint(i - previous - 1);
+                    previous = i;
+                }
+            }
+        } else {
+            out.writeVarint(SEAT_BITMAP);
+            for (int b = 0; b < bitmapBytes; b++) {
+                int bits = 0;
+                for (int bit = 0; bit < 8 && b * 8 + bit < capacity; bit++) {
+                    if (seatStatusMap.getStatus(b * 8 + bit) == SeatStatus.BOOKED) {
+                        bits |= 1 << bit;
+                    }
+                }
+                out.write(bits);
+            }
+        }
+    }
+
+    private static void readBookedSeats(Decoder in, Show show) throws IOException {
+
+        int encoding = in.readInt();
+        if (encoding == SEAT_GAPS) {
+            int booked = in.readInt();
+            int seatIndex = -1;
+            for (int i = 0; i < booked; i++) {
+                seatIndex += in.readInt() + 1;
+                show.restoreBookedSeat(seatIndex);
+            }
+        } else if (encoding == SEAT_BITMAP) {
+            int capacity = show.getSeatStatusMap().getCapacity();
+            for (int b = 0; b < (capacity + 7) / 8; b++) {
+                int bits = in.readByte();
+                while (bits != 0) {
+                    show.restoreBookedSeat(b * 8 + Integer.numberOfTrailingZeros(bits));
+                    bits &= bits - 1;
+                }
+            }
+        } else if (encoding != NO_SEATS) {
+            throw new IOException("unknown booked seats encoding " + encoding);
+        }
+    }
+
+    private static class Encoder implements AutoCloseable {
+
+        private final OutputStream out;
+
+        Encoder(OutputStream out) {
+            this.out = out;
+        }
+
+        static int varintSize(long value) {
+            return value == 0 ? 1 : (63 - Long.numberOfLeadingZeros(value)) / 7 + 1;
+        }
+
+        void write(int b) throws IOException {
+            out.write(b);
+        }
+
+        void writeVarint(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+
+        void writeSigned(long value) throws IOException {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        void writeString(String value) throws IOException {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1);
+            out.write(bytes);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private static class Decoder {
+
+        private final ByteBuffer buffer;
+
+        Decoder(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        int readByte() {
+            return buffer.get() & 0xFF;
+        }
+
+        long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = buffer.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("malformed varint at " + buffer.position());
+        }
+
+        //counts, indexes and lengths, anything outside 0..Integer.MAX_VALUE means the file is corrupt
+        int readInt() throws IOException {
+            long value = readVarint();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new IOException("value out of range at " + buffer.position() + ": " + value);
+            }
+            return (int) value;
+        }
+
+        long readSigned() throws IOException {
+            long value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String readString() throws IOException {
+            int length = readInt();
+            if (length == 0) {
+                return null;
+            }
+            if (length - 1 > buffer.remaining()) {
+                throw new IOException("string of " + (length - 1) + " bytes runs past the end at " + buffer.position());
+            }
+            byte[] bytes = new byte[length - 1];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -11,7 +11,8 @@ public class Theatre {
     String address;
     City city;
     List<Screen> screen = new ArrayList<>();
-    List<Show> shows = new ArrayList<>();
+    //replaced as a whole once the theatre is registered, see TheatreController.addShow
+    volatile List<Show> shows = new ArrayList<>();
 
     public int getTheatreId() {
         return theatreId;
@@ -3,57 +3,253 @@ package BookMyShow;
 
 import BookMyShow.Enums.City;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class TheatreController {
 
     Map<City, List<Theatre>> cityVsTheatre;
     List<Theatre> allTheatre;
 
+    //materialized search result, (city, movieId) -> shows theatre wise, published as an immutable versioned snapshot.
+    //writers are serialised and swap in a new snapshot, copying only the city and movie entries they touched.
+    //readers just read the volatile reference: no lock, no scan, no allocation, and never a half built show list
+    volatile CatalogSnapshot catalogSnapshot;
+
+    //(city, movieId) -> shows ordered by (date, start time, showId), for range and "next show" queries in O(log n).
+    //skip lists take concurrent inserts, so readers never wait for a writer here either
+    Map<Long, ConcurrentSkipListMap<Long, Show>> cityMovieVsShowsByTime;
+
+    //observers attached to every show, the ones added later too (ex: booking journal)
+    List<SeatObserver> showObservers;
+
+    //told about every new show, a cached summary of its (city, movie, date) does not count it yet
+    volatile ShowAvailabilityCache availabilityCache;
+
     TheatreController() {
         cityVsTheatre = new HashMap<>();
         allTheatre = new ArrayList<>();
+        catalogSnapshot = new CatalogSnapshot(0, Collections.emptyMap());
+        showObservers = new CopyOnWriteArrayList<>();
+        cityMovieVsShowsByTime = new ConcurrentHashMap<>();
+    }
+
+    static class CatalogSnapshot {
+
+        final long version;
+        final Map<City, Map<Integer, MovieShows>> cityVsMovieShows;
+
+        CatalogSnapshot(long version, Map<City, Map<Integer, MovieShows>> cityVsMovieShows) {
+            this.version = version;
+            this.cityVsMovieShows = cityVsMovieShows;
+        }
+    }
+
+    //shows of one movie in one city, immutable
+    static class MovieShows {
+
+        static final MovieShows EMPTY = new MovieShows(Collections.emptyMap(), Collections.emptyList());
+
+        final Map<Theatre, List<Show>> theatreVsShows;
+        final List<Show> allShows;
+
+        MovieShows(Map<Theatre, List<Show>> theatreVsShows, List<Show> allShows) {
+            this.theatreVsShows = theatreVsShows;
+            this.allShows = allShows;
+        }
+
+        //copy with the new shows added, show lists of the other theatres are shared
+        MovieShows plus(List<Theatre> theatres, List<Show> shows) {
+
+            Map<Theatre, List<Show>> newTheatreShows = new LinkedHashMap<>(theatreVsShows);
+            Map<Theatre, List<Show>> grown = new HashMap<>();
+            for (int i = 0; i < shows.size(); i++) {
+                Theatre theatre = theatres.get(i);
+                grown.computeIfAbsent(theatre, k -> new ArrayList<>(theatreVsShows.getOrDefault(k, List.of())))
+                        .add(shows.get(i));
+            }
+            for (Map.Entry<Theatre, List<Show>> entry : grown.entrySet()) {
+                newTheatreShows.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+            }
+
+            List<Show> newAllShows = new ArrayList<>(allShows.size() + shows.size());
+            newAllShows.addAll(allShows);
+            newAllShows.addAll(shows);
+            return new MovieShows(Collections.unmodifiableMap(newTheatreShows), Collections.unmodifiableList(newAllShows));
+        }
     }
 
-    void addTheatre(Theatre theatre, City city) {
+    synchronized void addTheatre(Theatre theatre, City city) {
 
         allTheatre.add(theatre);
 
         List<Theatre> theatres = cityVsTheatre.getOrDefault(city, new ArrayList<>());
         theatres.add(theatre);
         cityVsTheatre.put(city, theatres);
+
+        List<Theatre> showTheatres = new ArrayList<>();
+        for (Show show : theatre.getShows()) {
+            showTheatres.add(theatre);
+        }
+        indexShows(city, showTheatres, theatre.getShows());
+    }
+
+    //bulk load, the snapshot is rebuilt once per city instead of once per theatre
+    synchronized void addTheatres(List<Theatre> theatres) {
+
+        Map<City, List<Theatre>> cityVsShowTheatres = new EnumMap<>(City.class);
+        Map<City, List<Show>> cityVsShows = new EnumMap<>(City.class);
+        for (Theatre theatre : theatres) {
+            allTheatre.add(theatre);
+            cityVsTheatre.computeIfAbsent(theatre.getCity(), k -> new ArrayList<>()).add(theatre);
+            for (Show show : theatre.getShows()) {
+                cityVsShowTheatres.computeIfAbsent(theatre.getCity(), k -> new ArrayList<>()).add(theatre);
+                cityVsShows.computeIfAbsent(theatre.getCity(), k -> new ArrayList<>()).add(show);
+            }
+        }
+        for (Map.Entry<City, List<Show>> entry : cityVsShows.entrySet()) {
+            indexShows(entry.getKey(), cityVsShowTheatres.get(entry.getKey()), entry.getValue());
+        }
+    }
+
+    //new show in an already added theatre. the show list is replaced, not changed in place, because readers
+    //(getAllTheatres callers, snapshots, observers) iterate it without the lock
+    synchronized void addShow(Theatre theatre, Show show) {
+
+        List<Show> shows = new ArrayList<>(theatre.getShows());
+        shows.add(show);
+        theatre.setShows(Collections.unmodifiableList(shows));
+        indexShows(theatre.getCity(), List.of(theatre), List.of(show));
+    }
+
+    synchronized void addShowObserver(SeatObserver observer) {
+
+        showObservers.add(observer);
+        for (Theatre theatre : allTheatre) {
+            for (Show show : theatre.getShows()) {
+                show.addSeatObserver(observer);
+            }
+        }
+    }
+
+    void setAvailabilityCache(ShowAvailabilityCache availabilityCache) {
+        this.availabilityCache = availabilityCache;
+    }
+
+    synchronized List<Theatre> getAllTheatres() {
+        return new ArrayList<>(allTheatre);
     }
 
 
     Map<Theatre, List<Show>> getAllShow(Movie movie, City city) {
+        return getMovieShows(movie, city).theatreVsShows;
+    }
+
+    //same as getAllShow, without grouping by theatre
+    List<Show> getShows(Movie movie, City city) {
+        return getMovieShows(movie, city).allShows;
+    }
+
+    //shows of the movie on the date starting between fromHour and toHour (both included), ordered by start time
+    List<Show> getShowsBetween(Movie movie, City city, LocalDate date, int fromHour, int toHour) {
+
+        ConcurrentSkipListMap<Long, Show> showsByTime = cityMovieVsShowsByTime.get(cityMovieKey(city, movie.getMovieId()));
+        if (showsByTime == null || fromHour > toHour) {
+            return List.of();
+        }
+        NavigableMap<Long, Show> range = showsByTime.subMap(timeKey(date, fromHour, Integer.MIN_VALUE), true,
+                timeKey(date, toHour, Integer.MAX_VALUE), true);
+        return new ArrayList<>(range.values());
+    }
+
+    //first show of the movie starting at or after the hour of the date, later dates included. null if there is none
+    Show getNextShow(Movie movie, City city, LocalDate date, int fromHour) {
 
-        //get all the theater of this city
+        ConcurrentSkipListMap<Long, Show> showsByTime = cityMovieVsShowsByTime.get(cityMovieKey(city, movie.getMovieId()));
+        if (showsByTime == null) {
+            return null;
+        }
+        Map.Entry<Long, Show> next = showsByTime.ceilingEntry(timeKey(date, fromHour, Integer.MIN_VALUE));
+        return next == null ? null : next.getValue();
+    }
 
-        Map<Theatre, List<Show>> theatreVsShows = new HashMap<>();
+    //all shows of the movie in the city ordered by time, read only live view
+    NavigableMap<Long, Show> getShowsByTime(Movie movie, City city) {
+        NavigableMap<Long, Show> showsByTime = cityMovieVsShowsByTime.get(cityMovieKey(city, movie.getMovieId()));
+        return showsByTime == null ? Collections.emptyNavigableMap() : Collections.unmodifiableNavigableMap(showsByTime);
+    }
 
-        List<Theatre> theatres = cityVsTheatre.get(city);
+    long getCatalogVersion() {
+        return catalogSnapshot.version;
+    }
 
-        //filter the theatres which run this movie
+    private MovieShows getMovieShows(Movie movie, City city) {
 
-        for(Theatre theatre : theatres) {
+        Map<Integer, MovieShows> movieIdVsShows = catalogSnapshot.cityVsMovieShows.get(city);
+        if (movieIdVsShows == null) {
+            return MovieShows.EMPTY;
+        }
+        return movieIdVsShows.getOrDefault(movie.getMovieId(), MovieShows.EMPTY);
+    }
 
-            List<Show> givenMovieShows = new ArrayList<>();
-            List<Show> shows = theatre.getShows();
+    //theatres.get(i) runs shows.get(i). called with the lock held
+    private void indexShows(City city, List<Theatre> theatres, List<Show> shows) {
 
-            for(Show show : shows) {
-                if(show.movie.getMovieId() == movie.getMovieId()) {
-                    givenMovieShows.add(show);
-                }
+        Map<Integer, List<Theatre>> movieIdVsTheatres = new HashMap<>();
+        Map<Integer, List<Show>> movieIdVsNewShows = new HashMap<>();
+        for (int i = 0; i < shows.size(); i++) {
+            Show show = shows.get(i);
+            for (SeatObserver observer : showObservers) {
+                show.addSeatObserver(observer);
             }
-            if(!givenMovieShows.isEmpty()) {
-                theatreVsShows.put(theatre, givenMovieShows);
+            int movieId = show.getMovie().getMovieId();
+            cityMovieVsShowsByTime.computeIfAbsent(cityMovieKey(city, movieId), k -> new ConcurrentSkipListMap<>())
+                    .put(timeKey(show.getShowDate(), show.getShowStartTime(), show.getShowId()), show);
+            movieIdVsTheatres.computeIfAbsent(movieId, k -> new ArrayList<>()).add(theatres.get(i));
+            movieIdVsNewShows.computeIfAbsent(movieId, k -> new ArrayList<>()).add(show);
+        }
+        if (movieIdVsNewShows.isEmpty()) {
+            return;
+        }
+
+        CatalogSnapshot previous = catalogSnapshot;
+        Map<Integer, MovieShows> cityShows = new HashMap<>(previous.cityVsMovieShows.getOrDefault(city, Map.of()));
+        for (Map.Entry<Integer, List<Show>> entry : movieIdVsNewShows.entrySet()) {
+            MovieShows movieShows = cityShows.getOrDefault(entry.getKey(), MovieShows.EMPTY);
+            cityShows.put(entry.getKey(), movieShows.plus(movieIdVsTheatres.get(entry.getKey()), entry.getValue()));
+        }
+
+        Map<City, Map<Integer, MovieShows>> cityVsMovieShows = new EnumMap<>(City.class);
+        cityVsMovieShows.putAll(previous.cityVsMovieShows);
+        cityVsMovieShows.put(city, Collections.unmodifiableMap(cityShows));
+        catalogSnapshot = new CatalogSnapshot(previous.version + 1, Collections.unmodifiableMap(cityVsMovieShows));
+
+        //after the new snapshot is out, a summary computed from the old one is not cached anymore
+        ShowAvailabilityCache cache = availabilityCache;
+        if (cache != null) {
+            for (Show show : shows) {
+                cache.invalidate(city, show.getMovie(), show.getShowDate());
             }
         }
+    }
 
-        return theatreVsShows;
+    private static long cityMovieKey(City city, int movieId) {
+        return ((long) city.ordinal() << 32) | (movieId & 0xFFFFFFFFL);
     }
-}
 
+    //(epoch day, hour) in the high bits, showId in the low 32 bits (sign flipped so that negative ids sort first)
+    static long timeKey(LocalDate date, int hour, int showId) {
+        long day = date == null ? 0 : date.toEpochDay();
+        return ((day * 24 + hour) << 32) | ((showId ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+    }
+}
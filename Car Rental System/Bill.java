@@ -7,14 +7,18 @@ public class Bill {
     boolean isBillPaid;
 
     Bill(Reservation reservation) {
+        this(reservation, BillingEngine.standard());
+    }
+
+    Bill(Reservation reservation, BillingEngine billingEngine) {
         this.reservation = reservation;
-        this.totalBillAmount = computeBillAmount();
+        this.totalBillAmount = computeBillAmount(billingEngine);
         isBillPaid = false;
     }
 
-    private double computeBillAmount(){
+    private double computeBillAmount(BillingEngine billingEngine){
 
-        return 100.0;
+        return billingEngine.computeAmount(reservation);
     }
 
 }
@@ -0,0 +1,130 @@
+package CarRentalSystem;
+
+import CarRentalSystem.Product.Vehicle;
+import CarRentalSystem.Product.VehicleType;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+//Prices a reservation: rent for the booked hours/days, km over the included limit, late return, drop surcharge.
+//The rules are compiled once into a table indexed by [vehicle type][reservation type], every row already holds
+//the billing unit in millis, the included km per unit, rates and surcharges, so pricing a trip is a table
+//lookup plus a few multiplications and no rule is evaluated per bill. Engines are immutable, bills of any
+//number of trips can be priced in parallel.
+public class BillingEngine {
+
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private static final ReservationType[] RESERVATION_TYPES = ReservationType.values();
+
+    private static final BillingEngine STANDARD = new BillingEngine(new EnumMap<>(VehicleType.class));
+
+    private final PriceRow[][] pricingTable;
+
+    //vehicle types without rules use the default BillingRules
+    BillingEngine(Map<VehicleType, BillingRules> vehicleTypeVsRules) {
+
+        VehicleType[] vehicleTypes = VehicleType.values();
+        pricingTable = new PriceRow[vehicleTypes.length][RESERVATION_TYPES.length];
+        for (VehicleType vehicleType : vehicleTypes) {
+            BillingRules rules = vehicleTypeVsRules.getOrDefault(vehicleType, new BillingRules());
+            for (ReservationType reservationType : RESERVATION_TYPES) {
+                pricingTable[vehicleType.ordinal()][reservationType.ordinal()] = new PriceRow(reservationType, rules);
+            }
+        }
+    }
+
+    static BillingEngine standard() {
+        return STANDARD;
+    }
+
+    public double computeAmount(Reservation reservation) {
+
+        Vehicle vehicle = reservation.vehicle;
+        VehicleType vehicleType = vehicle.getVehicleType() == null ? VehicleType.CAR : vehicle.getVehicleType();
+        ReservationType reservationType = reservation.reservationType == null ? ReservationType.DAILY : reservation.reservationType;
+        PriceRow row = pricingTable[vehicleType.ordinal()][reservationType.ordinal()];
+
+        //rent, at least one unit, a started hour/day counts as a full one
+        long units = 1;
+        if (reservation.fromTimeStamp != null && reservation.toTimeStamp != null) {
+            units = Math.max(1, ceilDiv(reservation.toTimeStamp - reservation.fromTimeStamp, row.unitMillis));
+        }
+        int rate = reservationType == ReservationType.HOURLY ? vehicle.getHourlyRentalCost() : vehicle.getDailyRentalCost();
+        double amount = units * rate;
+
+        long extraKm = reservation.kmDriven - units * row.includedKmPerUnit;
+        if (extraKm > 0) {
+            amount += extraKm * row.extraKmRate;
+        }
+
+        if (reservation.returnTimeStamp != null && reservation.toTimeStamp != null) {
+            long lateMillis = reservation.returnTimeStamp - reservation.toTimeStamp;
+            if (lateMillis > row.lateGraceMillis) {
+                amount += ceilDiv(lateMillis, HOUR_MILLIS) * vehicle.getHourlyRentalCost() * row.lateHourMultiplier;
+            }
+        }
+
+        return amount + dropSurcharge(row, reservation.pickUpLocation, reservation.dropLocation);
+    }
+
+    //recomputes the bill amounts of many trips at once, amounts[i] is the bill of reservations.get(i)
+    public double[] computeAmounts(List<Reservation> reservations) {
+
+        double[] amounts = new double[reservations.size()];
+        IntStream.range(0, amounts.length).parallel().forEach(i -> amounts[i] = computeAmount(reservations.get(i)));
+        return amounts;
+    }
+
+    private static double dropSurcharge(PriceRow row, Location pickUp, Location drop) {
+
+        if (pickUp == null || drop == null || pickUp == drop
+                || (pickUp.pincode == drop.pincode && sameCity(pickUp, drop))) {
+            return 0;
+        }
+        if (sameCity(pickUp, drop)) {
+            return row.sameCityDropSurcharge;
+        }
+        double surcharge = row.otherCityDropSurcharge;
+        if (pickUp.hasCoordinates() && drop.hasCoordinates()) {
+            surcharge += pickUp.distanceInKm(drop) * row.otherCityDropRatePerKm;
+        }
+        return surcharge;
+    }
+
+    private static boolean sameCity(Location first, Location second) {
+        return first.city == null ? second.city == null : first.city.equalsIgnoreCase(second.city);
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+
+    //one pre evaluated pricing table entry
+    private static class PriceRow {
+
+        final long unitMillis;
+        final int includedKmPerUnit;
+        final double extraKmRate;
+        final long lateGraceMillis;
+        final double lateHourMultiplier;
+        final double sameCityDropSurcharge;
+        final double otherCityDropSurcharge;
+        final double otherCityDropRatePerKm;
+
+        PriceRow(ReservationType reservationType, BillingRules rules) {
+            boolean hourly = reservationType == ReservationType.HOURLY;
+            this.unitMillis = hourly ? HOUR_MILLIS : DAY_MILLIS;
+            this.includedKmPerUnit = hourly ? rules.includedKmPerHour : rules.includedKmPerDay;
+            this.extraKmRate = rules.extraKmRate;
+            this.lateGraceMillis = TimeUnit.MINUTES.toMillis(rules.lateGraceMinutes);
+            this.lateHourMultiplier = rules.lateHourMultiplier;
+            this.sameCityDropSurcharge = rules.sameCityDropSurcharge;
+            this.otherCityDropSurcharge = rules.otherCityDropSurcharge;
+            this.otherCityDropRatePerKm = rules.otherCityDropRatePerKm;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package CarRentalSystem;
+
+//Pricing rules of one vehicle type, BillingEngine compiles them into its pricing table.
+//Rental rates themselves come from the vehicle (dailyRentalCost, hourlyRentalCost).
+public class BillingRules {
+
+    //km included in the rent, per booked day / hour
+    int includedKmPerDay = 300;
+    int includedKmPerHour = 15;
+    double extraKmRate = 12.0;
+    //late returns are charged by the started hour at hourlyRentalCost * lateHourMultiplier, after a grace period
+    int lateGraceMinutes = 30;
+    double lateHourMultiplier = 1.5;
+    //dropping the vehicle at a different location than the pick up
+    double sameCityDropSurcharge = 300.0;
+    double otherCityDropSurcharge = 1500.0;
+    double otherCityDropRatePerKm = 8.0;
+
+    public BillingRules setIncludedKmPerDay(int includedKmPerDay) {
+        this.includedKmPerDay = includedKmPerDay;
+        return this;
+    }
+
+    public BillingRules setIncludedKmPerHour(int includedKmPerHour) {
+        this.includedKmPerHour = includedKmPerHour;
+        return this;
+    }
+
+    public BillingRules setExtraKmRate(double extraKmRate) {
+        this.extraKmRate = extraKmRate;
+        return this;
+    }
+
+    public BillingRules setLateGraceMinutes(int lateGraceMinutes) {
+        this.lateGraceMinutes = lateGraceMinutes;
+        return this;
+    }
+
+    public BillingRules setLateHourMultiplier(double lateHourMultiplier) {
+        this.lateHourMultiplier = lateHourMultiplier;
+        return this;
+    }
+
+    public BillingRules setSameCityDropSurcharge(double sameCityDropSurcharge) {
+        this.sameCityDropSurcharge = sameCityDropSurcharge;
+        return this;
+    }
+
+    public BillingRules setOtherCityDropSurcharge(double otherCityDropSurcharge) {
+        this.otherCityDropSurcharge = otherCityDropSurcharge;
+        return this;
+    }
+
+    public BillingRules setOtherCityDropRatePerKm(double otherCityDropRatePerKm) {
+        this.otherCityDropRatePerKm = otherCityDropRatePerKm;
+        return this;
+    }
+}
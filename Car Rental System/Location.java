@@ -7,6 +7,9 @@ public class Location {
     String city;
     String state;
     String country;
+    //degrees, NaN when not known
+    double latitude = Double.NaN;
+    double longitude = Double.NaN;
 
     Location(int pincode, String city, String state, String country) {
         this.pincode = pincode;
@@ -15,4 +18,32 @@ public class Location {
         this.country = country;
 
     }
+
+    Location(int pincode, String city, String state, String country, double latitude, double longitude) {
+        this(pincode, city, state, country);
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    public boolean hasCoordinates() {
+        return !Double.isNaN(latitude) && !Double.isNaN(longitude);
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    //great circle distance in km (haversine)
+    public double distanceInKm(Location other) {
+        double dLat = Math.toRadians(other.latitude - latitude);
+        double dLon = Math.toRadians(other.longitude - longitude);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(latitude)) * Math.cos(Math.toRadians(other.latitude))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * 6371.0 * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
 }
@@ -6,6 +6,7 @@ import CarRentalSystem.Product.VehicleType;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class Main {
 
@@ -22,26 +23,29 @@ public class Main {
         User user = users.get(0);
 
         //1. user search store based on location
-        Location location = new Location(403012, "Bangalore", "Karnataka", "India");
+        Location location = new Location(403012, "Bangalore", "Karnataka", "India", 12.9716, 77.5946);
         Store store = rentalSystem.getStore(location);
 
-        //2. get All vehicles you are interested in (based upon different filters)
-        List<Vehicle> storeVehicles = store.getVehicles(VehicleType.CAR);
+        //2. get All vehicles you are interested in (based upon different filters), free for the next 2 days
+        long from = System.currentTimeMillis();
+        long to = from + TimeUnit.DAYS.toMillis(2);
+        List<Vehicle> storeVehicles = store.getVehicles(VehicleType.CAR, from, to);
 
 
         //3.reserving the particular vehicle
-        Reservation reservation = store.createReservation(storeVehicles.get(0), users.get(0));
+        Reservation reservation = store.createReservation(storeVehicles.get(0), users.get(0), from, to);
 
-        //4. generate the bill
+        //4. trip completed, submit the vehicle 3 hours late with 650 km more on the odometer
+        long returnTimeStamp = to + TimeUnit.HOURS.toMillis(3);
+        store.completeReservation(reservation.reservationId, returnTimeStamp, reservation.vehicle.getKmDriven() + 650);
+
+        //5. generate the bill, rent + extra km + late return
         Bill bill = new Bill(reservation);
 
-        //5. make payment
+        //6. make payment
         Payment payment = new Payment();
         payment.payBill(bill);
 
-        //6. trip completed, submit the vehicle and close the reservation
-        store.completeReservation(reservation.reservationId);
-
     }
 
 
@@ -52,6 +56,8 @@ public class Main {
         Vehicle vehicle1 = new Car();
         vehicle1.setVehicleID(1);
         vehicle1.setVehicleType(VehicleType.CAR);
+        vehicle1.setDailyRentalCost(2000);
+        vehicle1.setHourlyRentalCost(150);
 
         Vehicle vehicle2 = new Car();
         vehicle1.setVehicleID(2);
@@ -78,6 +84,7 @@ public class Main {
         List<Store> stores = new ArrayList<>();
         Store store1 = new Store();
         store1.storeId = 1;
+        store1.storeLocation = new Location(560001, "Bangalore", "Karnataka", "India", 12.9756, 77.6050);
         store1.setVehicles(vehicles);
 
         stores.add(store1);
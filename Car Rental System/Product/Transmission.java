@@ -0,0 +1,7 @@
+package CarRentalSystem.Product;
+
+public enum Transmission {
+
+    MANUAL,
+    AUTOMATIC;
+}
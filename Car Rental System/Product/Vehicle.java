@@ -17,6 +17,7 @@ public  class Vehicle {
     int hourlyRentalCost;
     int noOfSeat;
     Status status;
+    Transmission transmission;
 
     //getters and setters
 
@@ -124,4 +125,12 @@ public  class Vehicle {
     public void setStatus(Status status) {
         this.status = status;
     }
+
+    public Transmission getTransmission() {
+        return transmission;
+    }
+
+    public void setTransmission(Transmission transmission) {
+        this.transmission = transmission;
+    }
 }
@@ -3,9 +3,13 @@ package CarRentalSystem;
 import CarRentalSystem.Product.Vehicle;
 
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Reservation {
 
+    //lock free, every reservation gets the next id
+    private static final AtomicInteger RESERVATION_ID_GENERATOR = new AtomicInteger();
+
     int reservationId;
     User user;
     Vehicle vehicle;
@@ -14,6 +18,9 @@ public class Reservation {
     Date dateBookedTo;
     Long fromTimeStamp;
     Long toTimeStamp;
+    //filled in when the vehicle is returned
+    Long returnTimeStamp;
+    int kmDriven;
     Location pickUpLocation;
     Location dropLocation;
     ReservationType reservationType;
@@ -23,7 +30,7 @@ public class Reservation {
     public int createReserve(User user, Vehicle vehicle){
 
         //generate new id
-        reservationId = 12232;
+        reservationId = RESERVATION_ID_GENERATOR.incrementAndGet();
         this.user=user;
         this.vehicle=vehicle;
         reservationType = ReservationType.DAILY;
@@ -32,6 +39,14 @@ public class Reservation {
         return reservationId;
     }
 
+    //reservation for the time range [fromTimeStamp, toTimeStamp) in epoch millis
+    public int createReserve(User user, Vehicle vehicle, long fromTimeStamp, long toTimeStamp){
+
+        this.fromTimeStamp = fromTimeStamp;
+        this.toTimeStamp = toTimeStamp;
+        return createReserve(user, vehicle);
+    }
+
     // CRUD operations
 
 }
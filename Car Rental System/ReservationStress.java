@@ -0,0 +1,146 @@
+package CarRentalSystem;
+
+import CarRentalSystem.Product.Car;
+import CarRentalSystem.Product.Vehicle;
+import CarRentalSystem.Product.VehicleType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//Races reservations with random time windows on a small fleet from many threads, while other threads cancel
+//or complete random recent reservations (often the same one at the same time). Fails with IllegalStateException when
+//  - two open reservations of a vehicle overlap
+//  - two reservations get the same id
+//  - a reservation is closed twice
+//  - the per vehicle bookings (VehicleBookings) do not match the open reservations once all threads are done
+//
+//usage: ReservationStress [threads] [attempts per thread] [vehicles]
+//ex:    ReservationStress 8 200000 200
+public class ReservationStress {
+
+    //recent reservation ids shared by all threads, so closes race with each other
+    private static final int RECENT_IDS = 1024;
+
+    public static void main(String args[]) throws Exception {
+
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int attemptsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int vehicleCount = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        List<Vehicle> fleet = new ArrayList<>();
+        for (int i = 0; i < vehicleCount; i++) {
+            Vehicle vehicle = new Car();
+            vehicle.setVehicleID(i);
+            vehicle.setVehicleType(VehicleType.CAR);
+            fleet.add(vehicle);
+        }
+        Store store = new Store();
+        store.setVehicles(fleet);
+        User user = new User();
+
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        Set<Integer> closedIds = ConcurrentHashMap.newKeySet();
+        AtomicIntegerArray recentIds = new AtomicIntegerArray(RECENT_IDS);
+        LongAdder reserved = new LongAdder();
+        LongAdder conflicts = new LongAdder();
+        LongAdder closed = new LongAdder();
+        LongAdder duplicateIds = new LongAdder();
+        LongAdder closedTwice = new LongAdder();
+
+        long start = System.nanoTime();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    if (random.nextInt(4) == 0) {
+                        int reservationId = recentIds.get(random.nextInt(RECENT_IDS));
+                        boolean closedNow = random.nextBoolean()
+                                ? store.cancelReservation(reservationId) : store.completeReservation(reservationId, System.currentTimeMillis(), 0);
+                        if (closedNow) {
+                            closed.increment();
+                            if (!closedIds.add(reservationId)) {
+                                closedTwice.increment();
+                            }
+                        }
+                        continue;
+                    }
+
+                    long from = random.nextInt(1_000_000);
+                    long to = from + 1 + random.nextInt(500);
+                    Reservation reservation = store.createReservation(fleet.get(random.nextInt(vehicleCount)), user, from, to);
+                    if (reservation == null) {
+                        conflicts.increment();
+                        continue;
+                    }
+                    reserved.increment();
+                    if (!ids.add(reservation.reservationId)) {
+                        duplicateIds.increment();
+                    }
+                    recentIds.set(random.nextInt(RECENT_IDS), reservation.reservationId);
+                }
+            }, "reservation-stress-" + t));
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        Map<Integer, List<Reservation>> vehicleIdVsReservations = new HashMap<>();
+        for (Reservation reservation : store.reservations.values()) {
+            vehicleIdVsReservations.computeIfAbsent(reservation.vehicle.getVehicleID(), k -> new ArrayList<>()).add(reservation);
+        }
+        int overlaps = 0;
+        int missingBookings = 0;
+        int extraBookings = 0;
+        for (Vehicle vehicle : fleet) {
+            List<Reservation> reservations = vehicleIdVsReservations.getOrDefault(vehicle.getVehicleID(), List.of());
+            reservations.sort(Comparator.comparingLong(reservation -> reservation.fromTimeStamp));
+            for (int i = 1; i < reservations.size(); i++) {
+                if (reservations.get(i).fromTimeStamp < reservations.get(i - 1).toTimeStamp) {
+                    overlaps++;
+                }
+            }
+            VehicleBookings bookings = store.inventoryManagement.vehicleIdVsBookings.get(vehicle.getVehicleID());
+            int booked = bookings == null ? 0 : bookings.size();
+            for (Reservation reservation : reservations) {
+                if (bookings == null || !bookings.contains(reservation.fromTimeStamp, reservation.toTimeStamp)) {
+                    missingBookings++;
+                }
+            }
+            extraBookings += Math.max(0, booked - reservations.size());
+        }
+
+        System.out.printf("threads=%d attempts/s=%.0f reserved=%d conflicts=%d closed=%d open=%d%n", threads,
+                threads * (double) attemptsPerThread / (elapsedNanos / 1e9), reserved.sum(), conflicts.sum(),
+                closed.sum(), store.reservations.size());
+        System.out.printf("overlaps=%d duplicate ids=%d closed twice=%d missing bookings=%d extra bookings=%d%n",
+                overlaps, duplicateIds.sum(), closedTwice.sum(), missingBookings, extraBookings);
+
+        if (overlaps != 0) {
+            throw new IllegalStateException(overlaps + " overlapping reservations");
+        }
+        if (duplicateIds.sum() != 0 || closedTwice.sum() != 0) {
+            throw new IllegalStateException("reservation ids handed out or closed twice");
+        }
+        if (missingBookings != 0 || extraBookings != 0) {
+            throw new IllegalStateException("vehicle bookings do not match the open reservations");
+        }
+        if (reserved.sum() - closed.sum() != store.reservations.size()) {
+            throw new IllegalStateException("reserved - closed = " + (reserved.sum() - closed.sum())
+                    + ", open reservations " + store.reservations.size());
+        }
+        System.out.println("OK");
+    }
+}
@@ -3,20 +3,39 @@ package CarRentalSystem;
 import CarRentalSystem.Product.Vehicle;
 import CarRentalSystem.Product.VehicleType;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Store {
 
     int storeId;
     VehicleInventoryManagement inventoryManagement;
     Location storeLocation;
-    List<Reservation> reservations = new ArrayList<>();
+    //reservationId -> open reservation
+    Map<Integer, Reservation> reservations = new ConcurrentHashMap<>();
 
 
     public List<Vehicle> getVehicles(VehicleType vehicleType) {
 
-        return inventoryManagement.getVehicles();
+        return inventoryManagement.getVehicles(new VehicleQuery().vehicleType(vehicleType));
+    }
+
+    //ex: new VehicleQuery().transmission(Transmission.AUTOMATIC).seats(7).maxDailyRentalCost(3000)
+    public List<Vehicle> getVehicles(VehicleQuery query) {
+
+        return inventoryManagement.getVehicles(query);
+    }
+
+    public List<Vehicle> getVehicles(VehicleQuery query, long fromTimeStamp, long toTimeStamp) {
+
+        return inventoryManagement.getAvailableVehicles(query, fromTimeStamp, toTimeStamp);
+    }
+
+    //vehicles of the type which are free for the whole time range
+    public List<Vehicle> getVehicles(VehicleType vehicleType, long fromTimeStamp, long toTimeStamp) {
+
+        return inventoryManagement.getAvailableVehicles(vehicleType, fromTimeStamp, toTimeStamp);
     }
 
 
@@ -27,16 +46,56 @@ public class Store {
         inventoryManagement = new VehicleInventoryManagement(vehicles);
     }
 
-    public Reservation createReservation(Vehicle vehicle, User user) {
+    //null if the vehicle is already booked for part of the time range.
+    //the overlap check and the booking happen together under the vehicle's own lock (VehicleBookings.add),
+    //so two users can never get the same vehicle for overlapping times, reservations of different vehicles
+    //do not wait for each other
+    public Reservation createReservation(Vehicle vehicle, User user, long fromTimeStamp, long toTimeStamp) {
+        if (!inventoryManagement.addBooking(vehicle, fromTimeStamp, toTimeStamp)) {
+            return null;
+        }
         Reservation reservation = new Reservation();
-        reservation.createReserve(user, vehicle);
-        reservations.add(reservation);
+        reservation.createReserve(user, vehicle, fromTimeStamp, toTimeStamp);
+        reservations.put(reservation.reservationId, reservation);
         return reservation;
     }
 
-    public boolean completeReservation(int reservationID) {
+    //vehicle returned at returnTimeStamp (epoch millis) with odometerKm on the odometer, the bill of the
+    //reservation charges the km since the last return and the hours after toTimeStamp
+    public boolean completeReservation(int reservationID, long returnTimeStamp, int odometerKm) {
+
+        Reservation reservation = reservations.get(reservationID);
+        if (reservation == null) {
+            return false;
+        }
+        Vehicle vehicle = reservation.vehicle;
+        if (odometerKm < vehicle.getKmDriven()) {
+            throw new IllegalArgumentException("odometer " + odometerKm + " is behind the vehicle's " + vehicle.getKmDriven() + " km");
+        }
+        if (!closeReservation(reservation, ReservationStatus.COMPLETED)) {
+            return false;
+        }
+        reservation.returnTimeStamp = returnTimeStamp;
+        reservation.kmDriven = odometerKm - vehicle.getKmDriven();
+        vehicle.setKmDriven(odometerKm);
+        return true;
+    }
+
+    public boolean cancelReservation(int reservationID) {
+
+        Reservation reservation = reservations.get(reservationID);
+        return reservation != null && closeReservation(reservation, ReservationStatus.CANCELLED);
+    }
+
+    //only the caller which removes the reservation closes it, so it is freed once
+    private boolean closeReservation(Reservation reservation, ReservationStatus status) {
 
-        //take out the reservation from the list and call complete the reservation method.
+        if (!reservations.remove(reservation.reservationId, reservation)) {
+            return false;
+        }
+        reservation.reservationStatus = status;
+        //every reservation of the store has a time range, it was booked through addBooking
+        inventoryManagement.removeBooking(reservation.vehicle, reservation.fromTimeStamp, reservation.toTimeStamp);
         return true;
     }
 
@@ -0,0 +1,171 @@
+package CarRentalSystem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+//Grid index of stores by coordinates: the map is cut in square cells of cellSizeDegrees and every store is
+//kept in the list of its cell. Queries only look at the cells around the point instead of every store.
+//Nearest K walks rings of cells outwards from the user's cell and stops as soon as no store in the next ring
+//can be closer than the K-th store found so far. Radius queries read the cells of the bounding box.
+//Stores without coordinates are not indexed.
+public class StoreLocator {
+
+    private static final double KM_PER_DEGREE = 111.2;
+
+    private final double cellSizeDegrees;
+    //cell key -> stores in the cell
+    private final Map<Long, List<Store>> cellVsStores = new ConcurrentHashMap<>();
+    //occupied cell range, rings beyond it are empty
+    private volatile int minRow = Integer.MAX_VALUE;
+    private volatile int maxRow = Integer.MIN_VALUE;
+    private volatile int minColumn = Integer.MAX_VALUE;
+    private volatile int maxColumn = Integer.MIN_VALUE;
+
+    //0.1 degree ~ 11 km cells, a few stores per cell in a city
+    StoreLocator() {
+        this(0.1);
+    }
+
+    StoreLocator(double cellSizeDegrees) {
+        this.cellSizeDegrees = cellSizeDegrees;
+    }
+
+    public synchronized void addStore(Store store) {
+        Location location = store.storeLocation;
+        if (location == null || !location.hasCoordinates()) {
+            return;
+        }
+        int row = row(location.getLatitude());
+        int column = column(location.getLongitude());
+        cellVsStores.computeIfAbsent(key(row, column), k -> new CopyOnWriteArrayList<>()).add(store);
+        minRow = Math.min(minRow, row);
+        maxRow = Math.max(maxRow, row);
+        minColumn = Math.min(minColumn, column);
+        maxColumn = Math.max(maxColumn, column);
+    }
+
+    public synchronized boolean removeStore(Store store) {
+        Location location = store.storeLocation;
+        if (location == null || !location.hasCoordinates()) {
+            return false;
+        }
+        List<Store> stores = cellVsStores.get(key(row(location.getLatitude()), column(location.getLongitude())));
+        return stores != null && stores.remove(store);
+    }
+
+    //closest first, at most k stores
+    public List<Store> getNearestStores(Location location, int k) {
+
+        if (k <= 0 || !location.hasCoordinates() || minRow > maxRow) {
+            return List.of();
+        }
+        //farthest of the k best on top
+        PriorityQueue<StoreDistance> best = new PriorityQueue<>(Comparator.comparingDouble((StoreDistance s) -> s.distance).reversed());
+        int row = row(location.getLatitude());
+        int column = column(location.getLongitude());
+        int maxRing = Math.max(Math.max(Math.abs(row - minRow), Math.abs(row - maxRow)),
+                Math.max(Math.abs(column - minColumn), Math.abs(column - maxColumn)));
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (best.size() == k && minDistanceOfRing(location, ring) > best.peek().distance) {
+                break;
+            }
+            for (int r = row - ring; r <= row + ring; r++) {
+                //full rows at the top and bottom of the ring, only the two side cells in between
+                int step = r == row - ring || r == row + ring ? 1 : Math.max(1, 2 * ring);
+                for (int c = column - ring; c <= column + ring; c += step) {
+                    List<Store> stores = cellVsStores.get(key(r, c));
+                    if (stores == null) {
+                        continue;
+                    }
+                    for (Store store : stores) {
+                        double distance = location.distanceInKm(store.storeLocation);
+                        if (best.size() < k) {
+                            best.add(new StoreDistance(store, distance));
+                        } else if (distance < best.peek().distance) {
+                            best.poll();
+                            best.add(new StoreDistance(store, distance));
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Store> nearest = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            nearest.add(best.poll().store);
+        }
+        Collections.reverse(nearest);
+        return nearest;
+    }
+
+    //closest first
+    public List<Store> getStoresWithin(Location location, double radiusKm) {
+
+        if (!location.hasCoordinates()) {
+            return List.of();
+        }
+        double latitudeDelta = radiusKm / KM_PER_DEGREE;
+        double cos = Math.cos(Math.toRadians(Math.min(89.0, Math.abs(location.getLatitude()) + latitudeDelta)));
+        double longitudeDelta = Math.min(180.0, radiusKm / (KM_PER_DEGREE * cos));
+
+        List<StoreDistance> found = new ArrayList<>();
+        for (int r = row(location.getLatitude() - latitudeDelta); r <= row(location.getLatitude() + latitudeDelta); r++) {
+            for (int c = column(location.getLongitude() - longitudeDelta); c <= column(location.getLongitude() + longitudeDelta); c++) {
+                List<Store> stores = cellVsStores.get(key(r, c));
+                if (stores == null) {
+                    continue;
+                }
+                for (Store store : stores) {
+                    double distance = location.distanceInKm(store.storeLocation);
+                    if (distance <= radiusKm) {
+                        found.add(new StoreDistance(store, distance));
+                    }
+                }
+            }
+        }
+        found.sort(Comparator.comparingDouble(s -> s.distance));
+        List<Store> stores = new ArrayList<>(found.size());
+        for (StoreDistance storeDistance : found) {
+            stores.add(storeDistance.store);
+        }
+        return stores;
+    }
+
+    //lower bound of the distance to any point in a cell `ring` cells away from the location's cell
+    private double minDistanceOfRing(Location location, int ring) {
+        if (ring <= 1) {
+            return 0;
+        }
+        double farthestLatitude = Math.min(89.0, Math.abs(location.getLatitude()) + ring * cellSizeDegrees);
+        return (ring - 1) * cellSizeDegrees * KM_PER_DEGREE * Math.cos(Math.toRadians(farthestLatitude));
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor(latitude / cellSizeDegrees);
+    }
+
+    private int column(double longitude) {
+        return (int) Math.floor(longitude / cellSizeDegrees);
+    }
+
+    private static long key(int row, int column) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    private static class StoreDistance {
+        final Store store;
+        final double distance;
+
+        StoreDistance(Store store, double distance) {
+            this.store = store;
+            this.distance = distance;
+        }
+    }
+}
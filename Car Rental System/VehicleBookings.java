@@ -0,0 +1,99 @@
+package CarRentalSystem;
+
+import java.util.Arrays;
+
+//Booked time intervals of one vehicle, [from, to) in epoch millis.
+//Intervals never overlap, so sorted by start they are also sorted by end, and "is the vehicle free from T1 to T2"
+//is one binary search: the last booking starting before T2 must end by T1.
+//The arrays are copy on write, readers use whatever pair was last published and never lock.
+public class VehicleBookings {
+
+    private static final long[] EMPTY = new long[0];
+
+    //starts[i] and ends[i] are the same booking, published together
+    private volatile Intervals intervals = new Intervals(EMPTY, EMPTY);
+
+    public boolean isFree(long from, long to) {
+        Intervals current = intervals;
+        int last = lastStartingBefore(current.starts, to);
+        return last < 0 || current.ends[last] <= from;
+    }
+
+    //false if it overlaps an existing booking
+    public synchronized boolean add(long from, long to) {
+
+        if (from >= to) {
+            throw new IllegalArgumentException("empty interval " + from + " - " + to);
+        }
+        Intervals current = intervals;
+        int last = lastStartingBefore(current.starts, to);
+        if (last >= 0 && current.ends[last] > from) {
+            return false;
+        }
+        int insertAt = last + 1;
+        intervals = new Intervals(insert(current.starts, insertAt, from), insert(current.ends, insertAt, to));
+        return true;
+    }
+
+    public synchronized boolean remove(long from, long to) {
+
+        Intervals current = intervals;
+        int index = Arrays.binarySearch(current.starts, from);
+        if (index < 0 || current.ends[index] != to) {
+            return false;
+        }
+        intervals = new Intervals(delete(current.starts, index), delete(current.ends, index));
+        return true;
+    }
+
+    //exactly this interval is booked
+    public boolean contains(long from, long to) {
+        Intervals current = intervals;
+        int index = Arrays.binarySearch(current.starts, from);
+        return index >= 0 && current.ends[index] == to;
+    }
+
+    public int size() {
+        return intervals.starts.length;
+    }
+
+    //index of the last interval with start < time, -1 if none
+    private static int lastStartingBefore(long[] starts, long time) {
+        int low = 0;
+        int high = starts.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    private static long[] insert(long[] values, int index, long value) {
+        long[] grown = new long[values.length + 1];
+        System.arraycopy(values, 0, grown, 0, index);
+        grown[index] = value;
+        System.arraycopy(values, index, grown, index + 1, values.length - index);
+        return grown;
+    }
+
+    private static long[] delete(long[] values, int index) {
+        long[] shrunk = new long[values.length - 1];
+        System.arraycopy(values, 0, shrunk, 0, index);
+        System.arraycopy(values, index + 1, shrunk, index, values.length - index - 1);
+        return shrunk;
+    }
+
+    private static class Intervals {
+        final long[] starts;
+        final long[] ends;
+
+        Intervals(long[] starts, long[] ends) {
+            this.starts = starts;
+            this.ends = ends;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package CarRentalSystem;
+
+import CarRentalSystem.Product.Transmission;
+import CarRentalSystem.Product.Vehicle;
+import CarRentalSystem.Product.VehicleType;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+//Column bitmaps over the vehicles of a store: for every value of an attribute, a BitSet with bit i set
+//when vehicles.get(i) has that value. A VehicleQuery is answered by ANDing one bitmap per filter and only the
+//vehicles left at the end are touched. Numeric attributes (cc, daily cost) get one bitmap per band, a range
+//ORs the bands inside it and checks the vehicles of the two partly covered bands one by one.
+//Immutable, built from a snapshot of the vehicle list, rebuild it when vehicles or their attributes change.
+//Status is not indexed, it changes with every rental and is read live from the vehicles left after the bitmaps.
+public class VehicleFilterIndex {
+
+    private final List<Vehicle> vehicles;
+    private final Map<VehicleType, BitSet> vehicleTypeIndex = new EnumMap<>(VehicleType.class);
+    private final Map<Transmission, BitSet> transmissionIndex = new EnumMap<>(Transmission.class);
+    private final Map<String, BitSet> companyIndex = new HashMap<>();
+    private final Map<String, BitSet> modelIndex = new HashMap<>();
+    private final Map<Integer, BitSet> seatIndex = new HashMap<>();
+    private final BandIndex ccIndex;
+    private final BandIndex dailyCostIndex;
+
+    VehicleFilterIndex(List<Vehicle> vehicles) {
+
+        this.vehicles = new ArrayList<>(vehicles);
+        //cc in bands of 250 (bikes 100 - 1500, cars 800 - 5000), rental cost in bands of 500 a day
+        this.ccIndex = new BandIndex(this.vehicles, Vehicle::getCc, 250);
+        this.dailyCostIndex = new BandIndex(this.vehicles, Vehicle::getDailyRentalCost, 500);
+
+        for (int i = 0; i < this.vehicles.size(); i++) {
+            Vehicle vehicle = this.vehicles.get(i);
+            set(vehicleTypeIndex, vehicle.getVehicleType(), i);
+            set(transmissionIndex, vehicle.getTransmission(), i);
+            set(companyIndex, vehicle.getCompanyName(), i);
+            set(modelIndex, vehicle.getModelName(), i);
+            set(seatIndex, vehicle.getNoOfSeat(), i);
+        }
+    }
+
+    public List<Vehicle> find(VehicleQuery query) {
+
+        BitSet matches = new BitSet(vehicles.size());
+        matches.set(0, vehicles.size());
+        if (query.vehicleType != null) {
+            and(matches, vehicleTypeIndex.get(query.vehicleType));
+        }
+        if (query.transmission != null) {
+            and(matches, transmissionIndex.get(query.transmission));
+        }
+        if (query.companyName != null) {
+            and(matches, companyIndex.get(query.companyName));
+        }
+        if (query.modelName != null) {
+            and(matches, modelIndex.get(query.modelName));
+        }
+        if (query.noOfSeat != null) {
+            and(matches, seatIndex.get(query.noOfSeat));
+        }
+        if (query.minCc != Integer.MIN_VALUE || query.maxCc != Integer.MAX_VALUE) {
+            matches.and(ccIndex.between(query.minCc, query.maxCc, matches));
+        }
+        if (query.minDailyRentalCost != Integer.MIN_VALUE || query.maxDailyRentalCost != Integer.MAX_VALUE) {
+            matches.and(dailyCostIndex.between(query.minDailyRentalCost, query.maxDailyRentalCost, matches));
+        }
+
+        List<Vehicle> result = new ArrayList<>(matches.cardinality());
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            Vehicle vehicle = vehicles.get(i);
+            if (query.status == null || vehicle.getStatus() == query.status) {
+                result.add(vehicle);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return vehicles.size();
+    }
+
+    private static <K> void set(Map<K, BitSet> index, K value, int position) {
+        if (value != null) {
+            index.computeIfAbsent(value, k -> new BitSet()).set(position);
+        }
+    }
+
+    //no bitmap for the value means no vehicle has it
+    private static void and(BitSet matches, BitSet values) {
+        if (values == null) {
+            matches.clear();
+        } else {
+            matches.and(values);
+        }
+    }
+
+    private static class BandIndex {
+
+        final List<Vehicle> vehicles;
+        final ToIntFunction<Vehicle> attribute;
+        final int bandWidth;
+        final Map<Integer, BitSet> bandVsVehicles = new HashMap<>();
+        int minBand = Integer.MAX_VALUE;
+        int maxBand = Integer.MIN_VALUE;
+
+        BandIndex(List<Vehicle> vehicles, ToIntFunction<Vehicle> attribute, int bandWidth) {
+            this.vehicles = vehicles;
+            this.attribute = attribute;
+            this.bandWidth = bandWidth;
+            for (int i = 0; i < vehicles.size(); i++) {
+                int band = band(attribute.applyAsInt(vehicles.get(i)));
+                bandVsVehicles.computeIfAbsent(band, k -> new BitSet()).set(i);
+                minBand = Math.min(minBand, band);
+                maxBand = Math.max(maxBand, band);
+            }
+        }
+
+        //vehicles with min <= attribute <= max, the edge bands are only checked for the candidates
+        BitSet between(int min, int max, BitSet candidates) {
+
+            BitSet result = new BitSet(vehicles.size());
+            int fromBand = Math.max(band(min), minBand);
+            int toBand = Math.min(band(max), maxBand);
+            for (int band = fromBand; band <= toBand; band++) {
+                BitSet members = bandVsVehicles.get(band);
+                if (members == null) {
+                    continue;
+                }
+                boolean fullyInside = (long) band * bandWidth >= min && (long) (band + 1) * bandWidth - 1 <= max;
+                if (fullyInside) {
+                    result.or(members);
+                    continue;
+                }
+                BitSet edge = (BitSet) members.clone();
+                edge.and(candidates);
+                for (int i = edge.nextSetBit(0); i >= 0; i = edge.nextSetBit(i + 1)) {
+                    int value = attribute.applyAsInt(vehicles.get(i));
+                    if (value >= min && value <= max) {
+                        result.set(i);
+                    }
+                }
+            }
+            return result;
+        }
+
+        int band(int value) {
+            return Math.floorDiv(value, bandWidth);
+        }
+    }
+}
@@ -1,24 +1,80 @@
 package CarRentalSystem;
 
 import CarRentalSystem.Product.Vehicle;
+import CarRentalSystem.Product.VehicleType;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class VehicleInventoryManagement {
 
+    //below this many vehicles a plain loop is faster than splitting the work
+    private static final int PARALLEL_THRESHOLD = 10_000;
+
     List<Vehicle> vehicles;
+    //vehicleId -> booked intervals of the vehicle
+    Map<Integer, VehicleBookings> vehicleIdVsBookings = new ConcurrentHashMap<>();
+    volatile VehicleFilterIndex filterIndex;
 
     VehicleInventoryManagement(List<Vehicle> vehicles) {
         this.vehicles = vehicles;
+        this.filterIndex = new VehicleFilterIndex(vehicles);
     }
 
     public List<Vehicle> getVehicles() {
-        //filtering
         return vehicles;
     }
 
+    //filtering
+    public List<Vehicle> getVehicles(VehicleQuery query) {
+        return filterIndex.find(query);
+    }
+
     public void setVehicles(List<Vehicle> vehicles) {
         this.vehicles = vehicles;
+        this.filterIndex = new VehicleFilterIndex(vehicles);
+    }
+
+    //call after changing a vehicle's attributes (price, seats..), queries see the old values until then.
+    //status is read live and needs no refresh
+    public void refreshFilterIndex() {
+        this.filterIndex = new VehicleFilterIndex(vehicles);
+    }
+
+    //vehicles with no booking overlapping [from, to), O(log bookings) per vehicle
+    public List<Vehicle> getAvailableVehicles(long from, long to) {
+        return vehicleStream(vehicles).filter(vehicle -> isAvailable(vehicle, from, to)).collect(Collectors.toList());
+    }
+
+    public List<Vehicle> getAvailableVehicles(VehicleType vehicleType, long from, long to) {
+        return getAvailableVehicles(new VehicleQuery().vehicleType(vehicleType), from, to);
     }
-}
 
+    //attribute filters first from the bitmaps, then the booking check only for the vehicles left
+    public List<Vehicle> getAvailableVehicles(VehicleQuery query, long from, long to) {
+        List<Vehicle> matches = filterIndex.find(query);
+        return vehicleStream(matches).filter(vehicle -> isAvailable(vehicle, from, to)).collect(Collectors.toList());
+    }
+
+    public boolean isAvailable(Vehicle vehicle, long from, long to) {
+        VehicleBookings bookings = vehicleIdVsBookings.get(vehicle.getVehicleID());
+        return bookings == null || bookings.isFree(from, to);
+    }
+
+    //false if the vehicle is already booked for part of [from, to)
+    public boolean addBooking(Vehicle vehicle, long from, long to) {
+        return vehicleIdVsBookings.computeIfAbsent(vehicle.getVehicleID(), k -> new VehicleBookings()).add(from, to);
+    }
+
+    public boolean removeBooking(Vehicle vehicle, long from, long to) {
+        VehicleBookings bookings = vehicleIdVsBookings.get(vehicle.getVehicleID());
+        return bookings != null && bookings.remove(from, to);
+    }
+
+    private static Stream<Vehicle> vehicleStream(List<Vehicle> vehicles) {
+        return vehicles.size() < PARALLEL_THRESHOLD ? vehicles.stream() : vehicles.parallelStream();
+    }
+}
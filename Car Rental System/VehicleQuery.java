@@ -0,0 +1,69 @@
+package CarRentalSystem;
+
+import CarRentalSystem.Product.Status;
+import CarRentalSystem.Product.Transmission;
+import CarRentalSystem.Product.VehicleType;
+
+//Filters for VehicleFilterIndex, every filter set here must match, the ones left out match everything.
+//ex: automatic 7 seaters for 3000 a day or less
+//  new VehicleQuery().transmission(Transmission.AUTOMATIC).seats(7).maxDailyRentalCost(3000)
+public class VehicleQuery {
+
+    VehicleType vehicleType;
+    Transmission transmission;
+    Status status;
+    String companyName;
+    String modelName;
+    Integer noOfSeat;
+    int minCc = Integer.MIN_VALUE;
+    int maxCc = Integer.MAX_VALUE;
+    int minDailyRentalCost = Integer.MIN_VALUE;
+    int maxDailyRentalCost = Integer.MAX_VALUE;
+
+    public VehicleQuery vehicleType(VehicleType vehicleType) {
+        this.vehicleType = vehicleType;
+        return this;
+    }
+
+    public VehicleQuery transmission(Transmission transmission) {
+        this.transmission = transmission;
+        return this;
+    }
+
+    public VehicleQuery status(Status status) {
+        this.status = status;
+        return this;
+    }
+
+    public VehicleQuery companyName(String companyName) {
+        this.companyName = companyName;
+        return this;
+    }
+
+    public VehicleQuery modelName(String modelName) {
+        this.modelName = modelName;
+        return this;
+    }
+
+    public VehicleQuery seats(int noOfSeat) {
+        this.noOfSeat = noOfSeat;
+        return this;
+    }
+
+    //both included
+    public VehicleQuery ccBetween(int minCc, int maxCc) {
+        this.minCc = minCc;
+        this.maxCc = maxCc;
+        return this;
+    }
+
+    public VehicleQuery minDailyRentalCost(int minDailyRentalCost) {
+        this.minDailyRentalCost = minDailyRentalCost;
+        return this;
+    }
+
+    public VehicleQuery maxDailyRentalCost(int maxDailyRentalCost) {
+        this.maxDailyRentalCost = maxDailyRentalCost;
+        return this;
+    }
+}
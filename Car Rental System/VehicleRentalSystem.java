@@ -7,26 +7,58 @@ public class VehicleRentalSystem {
 
     List<Store> storeList;
     List<User> userList;
+    StoreLocator storeLocator;
 
     VehicleRentalSystem(List<Store> stores, List<User> users) {
 
         this.storeList = stores;
         this.userList = users;
+        this.storeLocator = new StoreLocator();
+        for (Store store : stores) {
+            storeLocator.addStore(store);
+        }
     }
 
 
     public Store getStore(Location location){
 
-        //based on location, we will filter out the Store from storeList.
+        //based on location, we will filter out the Store from storeList. nearest store by coordinates,
+        //first store of the same city when the coordinates are not known
+        List<Store> nearest = storeLocator.getNearestStores(location, 1);
+        if (!nearest.isEmpty()) {
+            return nearest.get(0);
+        }
+        for (Store store : storeList) {
+            if (store.storeLocation != null && store.storeLocation.city != null
+                    && store.storeLocation.city.equals(location.city)) {
+                return store;
+            }
+        }
         return storeList.get(0);
     }
 
+    //closest first
+    public List<Store> getNearestStores(Location location, int k) {
+        return storeLocator.getNearestStores(location, k);
+    }
+
+    public List<Store> getStoresWithin(Location location, double radiusKm) {
+        return storeLocator.getStoresWithin(location, radiusKm);
+    }
+
     //addUsers
 
     //remove users
 
     //add stores
+    public void addStore(Store store) {
+        storeList.add(store);
+        storeLocator.addStore(store);
+    }
 
     //remove stores
+    public void removeStore(Store store) {
+        storeList.remove(store);
+        storeLocator.removeStore(store);
+    }
 }
-